@@ -0,0 +1,151 @@
+package com.example.family;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+/**
+ * Metin protokolüne alternatif, uzunluk önekli ikili (binary) protokol.
+ *
+ * İstek çerçevesi (big-endian):
+ *   [opcode: 1 B][key: int32][length: int32][payload: length B]
+ * Cevap çerçevesi:
+ *   [status: 1 B][length: int32][payload: length B]
+ *
+ * Değerin boyu baştan bilindiği için satır sonu aranmaz, değer tek
+ * readFully ile boyu belli bir diziye okunur ve içinde '\n' de olabilir.
+ * Sunucu ve istemci (Tests) bu sınıftaki okuma/yazma yardımcılarını kullanır.
+ */
+public final class BinaryProtocol {
+
+    public static final byte OP_SET = 0x01;
+    public static final byte OP_GET = 0x02;
+    public static final byte OP_STATS = 0x03;
+
+    public static final byte STATUS_OK = 0x00;
+    public static final byte STATUS_NOT_FOUND = 0x01;
+    public static final byte STATUS_ERROR = 0x02;
+
+    // Tek değer için üst sınır (metin protokolündeki satır sınırıyla aynı)
+    public static final int MAX_PAYLOAD_BYTES = LineReader.MAX_LINE_BYTES;
+    // İstek başlığı: opcode + key + length
+    public static final int HEADER_BYTES = 1 + 4 + 4;
+
+    private BinaryProtocol() {
+    }
+
+    /** Okunan bir istek çerçevesi. */
+    public static final class Request {
+        public final byte opcode;
+        public final int key;
+        public final ByteString value;
+        // Kabul edilmediyse sebebi (payload okunmadan atlandı), yoksa null
+        public final String rejection;
+
+        Request(byte opcode, int key, ByteString value, String rejection) {
+            this.opcode = opcode;
+            this.key = key;
+            this.value = value;
+            this.rejection = rejection;
+        }
+    }
+
+    /** Yazılacak bir cevap çerçevesi. */
+    public static final class Response {
+        public final byte status;
+        public final ByteString payload;
+
+        public Response(byte status, ByteString payload) {
+            this.status = status;
+            this.payload = payload;
+        }
+
+        public static Response ok(ByteString payload) {
+            return new Response(STATUS_OK, payload);
+        }
+
+        public static Response notFound() {
+            return new Response(STATUS_NOT_FOUND, ByteString.EMPTY);
+        }
+
+        public static Response error(String message) {
+            return new Response(STATUS_ERROR, ByteString.copyFromUtf8(message));
+        }
+
+        public String payloadText() {
+            return payload.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Bir istek çerçevesi okur; akış çerçeve başında bittiyse null döner.
+     */
+    public static Request readRequest(DataInputStream in) throws IOException {
+        return readRequest(in, null);
+    }
+
+    /**
+     * admission çerçeve başlığından sonra, payload okunmadan önce toplam
+     * çerçeve boyuyla çağrılır. Sebep dönerse payload bellek ayrılmadan
+     * atlanır ve istek rejection ile döner (hız sınırı).
+     */
+    public static Request readRequest(DataInputStream in, IntFunction<String> admission) throws IOException {
+        int opcode = in.read();
+        if (opcode < 0) {
+            return null;
+        }
+        int key = in.readInt();
+        int length = readLength(in);
+        String rejection = admission == null ? null : admission.apply(HEADER_BYTES + length);
+        if (rejection != null) {
+            in.skipNBytes(length);
+            return new Request((byte) opcode, key, ByteString.EMPTY, rejection);
+        }
+        return new Request((byte) opcode, key, readPayload(in, length), null);
+    }
+
+    public static void writeRequest(DataOutputStream out, byte opcode, int key, ByteString value) throws IOException {
+        out.writeByte(opcode);
+        out.writeInt(key);
+        out.writeInt(value.size());
+        value.writeTo(out);
+    }
+
+    public static Response readResponse(DataInputStream in) throws IOException {
+        int status = in.read();
+        if (status < 0) {
+            throw new EOFException("Connection closed");
+        }
+        return new Response((byte) status, readPayload(in, readLength(in)));
+    }
+
+    public static void writeResponse(DataOutputStream out, Response response) throws IOException {
+        out.writeByte(response.status);
+        out.writeInt(response.payload.size());
+        response.payload.writeTo(out);
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+            throw new IOException("Invalid payload length " + length);
+        }
+        return length;
+    }
+
+    private static ByteString readPayload(DataInputStream in, int length) throws IOException {
+        if (length == 0) {
+            return ByteString.EMPTY;
+        }
+        // Boyu belli dizi; kopyalanmadan ByteString'e sarılır (sahibi artık ByteString)
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return UnsafeByteOperations.unsafeWrap(payload);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.family;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import com.example.family.BinaryProtocol.Request;
+import com.example.family.BinaryProtocol.Response;
+
+/**
+ * Liderin ikili ({@link BinaryProtocol}) protokolünü konuşan TCP sunucusu.
+ * Metin sunucusundaki gibi bağlantı başına bir thread; her bağlantıda
+ * istekler sırayla işlenir ve cevap hemen yazılır.
+ *
+ * tolerance.conf ayarları:
+ *   BINARY_ENABLED=true
+ *   BINARY_PORT=6667
+ */
+public class BinaryServer {
+
+    /**
+     * Tek bir isteği işler. Bloklayabilir (replikasyon, GET).
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Response handle(Request request);
+    }
+
+    private final int port;
+    private final Handler handler;
+    private volatile ServerSocket serverSocket;
+    private volatile ClientLimiter limiter;
+
+    public BinaryServer(int port, Handler handler) {
+        this.port = port;
+        this.handler = handler;
+    }
+
+    // Bağlantı ve istemci başına hız sınırı (start'tan önce; null = sınırsız)
+    public void useLimiter(ClientLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        new Thread(this::acceptLoop, "LeaderBinaryListener").start();
+    }
+
+    // Asıl dinlenen port (0 ile başlatıldıysa atanan port)
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void acceptLoop() {
+        try {
+            while (true) {
+                Socket client = serverSocket.accept();
+                ClientLimiter limiter = this.limiter;
+                if (limiter != null && !limiter.tryAcquireConnection(client.getInetAddress())) {
+                    reject(client);
+                    continue;
+                }
+                new Thread(() -> handleConnection(client), "binary-conn-" + client.getPort()).start();
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                System.err.println("Error in leader binary listener: " + e.getMessage());
+            }
+        }
+    }
+
+    // Bağlantı sınırı aşıldı: ERROR çerçevesi yaz ve kapat
+    private static void reject(Socket client) {
+        try (client) {
+            DataOutputStream out = new DataOutputStream(client.getOutputStream());
+            BinaryProtocol.writeResponse(out, Response.error("Too many connections"));
+            out.flush();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void handleConnection(Socket client) {
+        ClientLimiter limiter = this.limiter;
+        InetAddress address = client.getInetAddress();
+        Log.info("New binary client connected: %s", client.getRemoteSocketAddress());
+        try {
+            client.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream(), 64 * 1024));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream(), 64 * 1024));
+
+            Request request;
+            while ((request = BinaryProtocol.readRequest(in,
+                    limiter == null ? null : bytes -> limiter.checkCommand(address, bytes))) != null) {
+                Response response;
+                try {
+                    response = request.rejection != null
+                            ? Response.error(request.rejection)
+                            : handler.handle(request);
+                } catch (RuntimeException e) {
+                    response = Response.error(String.valueOf(e.getMessage()));
+                }
+                BinaryProtocol.writeResponse(out, response);
+                // Cevap beklenirken tamponda kalmasın
+                out.flush();
+            }
+        } catch (IOException e) {
+            Log.warn("Binary client handler error: %s", e.getMessage());
+        } finally {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+            }
+            if (limiter != null) {
+                limiter.releaseConnection(address);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.family;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import family.NodeInfo;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+
+/**
+ * "host:port" anahtarıyla tutulan uzun ömürlü gRPC kanal havuzu.
+ * Kanallar ilk kullanımda (lazy) açılır ve tüm RPC yollarında paylaşılır;
+ * böylece her SET/GET/ping için yeniden TCP + HTTP/2 el sıkışması yapılmaz.
+ * Üye aileden çıkarıldığında kanalı {@link #evict(NodeInfo)} ile kapatılır.
+ * {@link #useTransport(GrpcTransport)} verilirse kanallar sunucuyla aynı
+ * event loop grubunu ve kanal tipini (epoll/nio) kullanır.
+ */
+public class ChannelPool {
+
+    private final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+    private volatile GrpcTransport transport;
+
+    // İlk kanal açılmadan önce çağrılmalı; mevcut kanalları etkilemez
+    public void useTransport(GrpcTransport transport) {
+        this.transport = transport;
+    }
+
+    public ManagedChannel get(NodeInfo node) {
+        return get(node.getHost(), node.getPort());
+    }
+
+    public ManagedChannel get(String host, int port) {
+        return channels.computeIfAbsent(key(host, port), k -> {
+            GrpcTransport t = transport;
+            ManagedChannelBuilder<?> builder = t != null
+                    ? t.channelBuilder(host, port)
+                    : ManagedChannelBuilder.forAddress(host, port).usePlaintext();
+            return builder.build();
+        });
+    }
+
+    // Üye düştüğünde kanalı havuzdan çıkar ve kapat
+    public void evict(NodeInfo node) {
+        ManagedChannel channel = channels.remove(key(node.getHost(), node.getPort()));
+        if (channel != null) {
+            channel.shutdownNow();
+        }
+    }
+
+    public int size() {
+        return channels.size();
+    }
+
+    public void shutdownAll() {
+        for (String key : channels.keySet()) {
+            ManagedChannel channel = channels.remove(key);
+            if (channel != null) {
+                channel.shutdownNow();
+            }
+        }
+    }
+
+    private static String key(String host, int port) {
+        return host + ":" + port;
+    }
+}
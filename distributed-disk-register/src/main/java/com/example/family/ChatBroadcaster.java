@@ -0,0 +1,246 @@
+package com.example.family;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.protobuf.CodedOutputStream;
+
+import family.ChatBatch;
+import family.ChatMessage;
+import family.Empty;
+import family.FamilyServiceGrpc;
+import family.NodeInfo;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Lider komutlarının ChatMessage yayınını istemcinin yolundan çıkarır.
+ *
+ * submit mesajı sınırlı bir kuyruğa koyar ve hemen döner. Kuyruk
+ * BROADCAST_INTERVAL_MS aralıklarla boşaltılır ve her üyeye tek bir
+ * ReceiveChatBatch çağrısı (asenkron) gider; böylece komut başına üye
+ * sayısı kadar RPC beklenmez. Kuyruk dolarsa (adet ya da bayt sınırı)
+ * yeni mesaj atılır ve sayılır.
+ *
+ * Batch hem mesaj sayısıyla hem baytla sınırlıdır: üyelerin gRPC gelen mesaj
+ * sınırı (varsayılan 4 MB) aşılırsa batch'in tamamı RESOURCE_EXHAUSTED ile
+ * reddedilir ve içindeki küçük mesajlar da kaybolur. Sıradaki mesaj bayt
+ * sınırını aşacaksa batch orada kesilir. Tek mesaj sınırı tek başına
+ * aşmasın diye BROADCAST_MAX_TEXT_CHARS'tan uzun metinler submit'te
+ * kırpılır (baş + toplam uzunluk).
+ *
+ * Üye başına cevabı beklenen batch sayısı sınırlıdır: yavaş bir üyeye
+ * gönderilmiş batch'ler bellekte (gRPC tamponlarında) birikmesin. Sınırdaki
+ * üye o batch'i almaz, mesajları "üye meşgul" olarak sayılır; bütün üyeler
+ * sınırdaysa mesajlar kuyrukta bekler (kuyruk dolarsa submit atar).
+ *
+ * tolerance.conf ayarları:
+ *   BROADCAST_QUEUE_CAPACITY=10000
+ *   BROADCAST_QUEUE_BYTES=67108864
+ *   BROADCAST_INTERVAL_MS=50
+ *   BROADCAST_MAX_BATCH=500
+ *   BROADCAST_MAX_BATCH_BYTES=1048576   (gRPC'nin 4 MB gelen sınırının epey altında)
+ *   BROADCAST_MAX_TEXT_CHARS=1024
+ *   BROADCAST_MAX_IN_FLIGHT=4      (üye başına cevabı beklenen batch)
+ */
+public class ChatBroadcaster {
+
+    private final ChannelPool channelPool;
+    private final CircuitBreakers circuitBreakers;
+    private final NodeRegistry registry;
+    private final NodeInfo self;
+    private final int capacity;
+    private final long maxBytes;
+    private final int maxBatch;
+    private final int maxBatchBytes;
+    private final int maxTextChars;
+    private final int maxInFlight;
+
+    private final ArrayDeque<ChatMessage> queue = new ArrayDeque<>();
+    private long queuedBytes = 0;
+    // host:port -> cevabı beklenen batch sayısı
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong busySkipped = new AtomicLong();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ChatBroadcaster");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ChatBroadcaster(ChannelPool channelPool, CircuitBreakers circuitBreakers,
+            NodeRegistry registry, NodeInfo self) {
+        this.channelPool = channelPool;
+        this.circuitBreakers = circuitBreakers;
+        this.registry = registry;
+        this.self = self;
+        this.capacity = Math.max(1, ToleranceConfig.getInt("BROADCAST_QUEUE_CAPACITY", 10_000));
+        this.maxBytes = Math.max(1, ToleranceConfig.getLong("BROADCAST_QUEUE_BYTES", 64L * 1024 * 1024));
+        this.maxBatch = Math.max(1, ToleranceConfig.getInt("BROADCAST_MAX_BATCH", 500));
+        this.maxBatchBytes = Math.max(4096, ToleranceConfig.getInt("BROADCAST_MAX_BATCH_BYTES", 1024 * 1024));
+        // Karakter başına en fazla 3 UTF-8 baytı: kırpılmış mesaj batch sınırına sığar
+        this.maxTextChars = Math.max(16, Math.min(ToleranceConfig.getInt("BROADCAST_MAX_TEXT_CHARS", 1024),
+                (maxBatchBytes - 1024) / 3));
+        this.maxInFlight = Math.max(1, ToleranceConfig.getInt("BROADCAST_MAX_IN_FLIGHT", 4));
+        long intervalMs = Math.max(1, ToleranceConfig.getLong("BROADCAST_INTERVAL_MS", 50));
+        timer.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Mesajı yayın kuyruğuna koyar; kuyruk doluysa atar ve false döner.
+     */
+    public boolean submit(ChatMessage msg) {
+        submitted.incrementAndGet();
+        String text = msg.getText();
+        if (text.length() > maxTextChars) {
+            msg = msg.toBuilder()
+                    .setText(text.substring(0, maxTextChars) + "...(" + text.length() + " chars)")
+                    .build();
+        }
+        int size = msg.getSerializedSize();
+        synchronized (this) {
+            if (queue.size() < capacity && queuedBytes + size <= maxBytes) {
+                queue.add(msg);
+                queuedBytes += size;
+                return true;
+            }
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    private void flush() {
+        try {
+            while (true) {
+                List<NodeInfo> members = peers();
+                if (!members.isEmpty() && members.stream().noneMatch(this::hasRoom)) {
+                    // Herkes sınırda: mesajlar kuyrukta kalsın, cevaplar gelince sonraki turda gider
+                    return;
+                }
+                ChatBatch batch = nextBatch();
+                if (batch == null) {
+                    return;
+                }
+                send(batch, members);
+            }
+        } catch (RuntimeException e) {
+            // Zamanlayıcı hatada durmasın
+            Log.error("Broadcast flush failed: %s", e.getMessage());
+        }
+    }
+
+    private synchronized ChatBatch nextBatch() {
+        if (queue.isEmpty()) {
+            return null;
+        }
+        ChatBatch.Builder batch = ChatBatch.newBuilder();
+        long batchBytes = 0;
+        while (!queue.isEmpty() && batch.getMessagesCount() < maxBatch) {
+            // Alan etiketi ve uzunluk önekiyle birlikte batch'teki boyu
+            int size = CodedOutputStream.computeMessageSize(ChatBatch.MESSAGES_FIELD_NUMBER, queue.peek());
+            if (batchBytes + size > maxBatchBytes && batch.getMessagesCount() > 0) {
+                break;
+            }
+            ChatMessage msg = queue.poll();
+            queuedBytes -= msg.getSerializedSize();
+            batchBytes += size;
+            batch.addMessages(msg);
+        }
+        return batch.build();
+    }
+
+    // Kendimiz hariç üyeler
+    private List<NodeInfo> peers() {
+        List<NodeInfo> peers = new ArrayList<>();
+        for (NodeInfo n : registry.snapshot()) {
+            if (!(n.getHost().equals(self.getHost()) && n.getPort() == self.getPort())) {
+                peers.add(n);
+            }
+        }
+        return peers;
+    }
+
+    private AtomicInteger inFlight(NodeInfo n) {
+        return inFlight.computeIfAbsent(n.getHost() + ":" + n.getPort(), k -> new AtomicInteger());
+    }
+
+    private boolean hasRoom(NodeInfo n) {
+        return inFlight(n).get() < maxInFlight;
+    }
+
+    private void send(ChatBatch batch, List<NodeInfo> members) {
+        for (NodeInfo n : members) {
+            // Devresi açık üyeyi bekleme, hemen atla
+            if (!circuitBreakers.allowRequest(n)) {
+                failedBatches.incrementAndGet();
+                continue;
+            }
+            AtomicInteger pending = inFlight(n);
+            if (pending.incrementAndGet() > maxInFlight) {
+                // Üye önceki batch'lere cevap vermedi: bunu ona gönderme
+                pending.decrementAndGet();
+                busySkipped.addAndGet(batch.getMessagesCount());
+                continue;
+            }
+            batches.incrementAndGet();
+            try {
+                FamilyServiceGrpc.FamilyServiceStub stub = RpcDeadlines.withDeadline(
+                        FamilyServiceGrpc.newStub(channelPool.get(n)), RpcDeadlines.broadcastMs());
+                stub.receiveChatBatch(batch, new StreamObserver<Empty>() {
+                    @Override
+                    public void onNext(Empty value) {
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        pending.decrementAndGet();
+                        circuitBreakers.onFailure(n, t);
+                        failedBatches.incrementAndGet();
+                        Log.warn("Failed to send %d messages to %s:%d (%s)",
+                                batch.getMessagesCount(), n.getHost(), n.getPort(), t.getMessage());
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        pending.decrementAndGet();
+                        circuitBreakers.onSuccess(n);
+                    }
+                });
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                failedBatches.incrementAndGet();
+                Log.warn("Failed to send to %s:%d (%s)", n.getHost(), n.getPort(), e.getMessage());
+            }
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public String statsReport() {
+        int depth;
+        synchronized (this) {
+            depth = queue.size();
+        }
+        return String.format("Kuyruğa alınan: %d | Atılan (kuyruk dolu): %d | Kuyrukta: %d | Gönderilen batch: %d | Başarısız batch: %d"
+                + " | Atılan (üye meşgul): %d%n",
+                submitted.get(), dropped.get(), depth, batches.get(), failedBatches.get(), busySkipped.get());
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
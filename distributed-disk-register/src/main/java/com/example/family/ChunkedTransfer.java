@@ -0,0 +1,123 @@
+package com.example.family;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.protobuf.ByteString;
+
+import family.Codec;
+import family.MessageId;
+import family.StorageServiceGrpc;
+import family.StoreResult;
+import family.StoredMessage;
+import family.ValueChunk;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+
+/**
+ * Büyük değerleri (CHUNK_THRESHOLD ve üstü) StoreChunked / RetrieveChunked
+ * stream'leri ile CHUNK_SIZE'lık parçalar halinde taşır. Follower tarafı
+ * parçaları geldikçe diske yazar, böylece bellekte tek seferde en fazla
+ * bir parça tutulur.
+ *
+ * tolerance.conf ayarları:
+ *   CHUNK_SIZE=65536
+ *   CHUNK_THRESHOLD=262144
+ */
+public class ChunkedTransfer {
+
+    public static int chunkSize() {
+        return Math.max(1024, ToleranceConfig.getInt("CHUNK_SIZE", 64 * 1024));
+    }
+
+    public static int threshold() {
+        return ToleranceConfig.getInt("CHUNK_THRESHOLD", 256 * 1024);
+    }
+
+    /**
+     * Değeri parçalar halinde gönderir. Parçalar flow control'e göre
+     * (isReady / onReadyHandler) yazılır, gRPC tamponuna topluca yığılmaz.
+     */
+    public static CompletableFuture<Boolean> store(ManagedChannel channel, int id, Codec codec, ByteString data) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        int size = chunkSize();
+
+        ClientResponseObserver<ValueChunk, StoreResult> observer = new ClientResponseObserver<>() {
+            private int offset = 0;
+            private boolean finished = false;
+
+            @Override
+            public void beforeStart(ClientCallStreamObserver<ValueChunk> requestStream) {
+                requestStream.setOnReadyHandler(() -> pump(requestStream));
+            }
+
+            private synchronized void pump(ClientCallStreamObserver<ValueChunk> requestStream) {
+                while (!finished && requestStream.isReady()) {
+                    int len = Math.min(size, data.size() - offset);
+                    requestStream.onNext(ValueChunk.newBuilder()
+                            .setId(id)
+                            .setCodec(codec)
+                            .setTotalSize(data.size())
+                            .setData(data.substring(offset, offset + len)) // kopyasız dilim
+                            .build());
+                    offset += len;
+                    if (offset >= data.size()) {
+                        finished = true;
+                        requestStream.onCompleted();
+                    }
+                }
+            }
+
+            @Override
+            public void onNext(StoreResult result) {
+                future.complete(result.getSuccess());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                future.complete(false);
+            }
+        };
+
+        try {
+            RpcDeadlines.withDeadline(StorageServiceGrpc.newStub(channel), RpcDeadlines.chunkedMs())
+                    .storeChunked(observer);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Değeri parça parça okur ve codec bayrağıyla StoredMessage olarak döner;
+     * kayıt yoksa null döner.
+     */
+    public static StoredMessage retrieve(ManagedChannel channel, int id) {
+        Iterator<ValueChunk> chunks = RpcDeadlines.withDeadline(
+                StorageServiceGrpc.newBlockingStub(channel), RpcDeadlines.chunkedMs())
+                .retrieveChunked(MessageId.newBuilder().setId(id).build());
+
+        // Parçalar kopyalanmadan birleştirilir (ByteString.concat rope üretir)
+        ByteString value = null;
+        Codec codec = Codec.NONE;
+        while (chunks.hasNext()) {
+            ValueChunk chunk = chunks.next();
+            if (value == null) {
+                value = chunk.getData();
+                codec = chunk.getCodec();
+            } else {
+                value = value.concat(chunk.getData());
+            }
+        }
+        if (value == null) {
+            return null;
+        }
+        return StoredMessage.newBuilder().setId(id).setCodec(codec).setPayload(value).build();
+    }
+}
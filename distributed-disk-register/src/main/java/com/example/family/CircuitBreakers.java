@@ -0,0 +1,168 @@
+package com.example.family;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import family.NodeInfo;
+import io.grpc.Status;
+
+/**
+ * Üye başına devre kesici (circuit breaker).
+ *
+ * Bir üyeye arka arkaya CB_FAILURE_THRESHOLD kez zaman aşımı / UNAVAILABLE
+ * alınırsa devre açılır ve CB_OPEN_MS boyunca o üyeye istek gönderilmez
+ * (SET başka replikaya yönlenir, GET onu en sona bırakır). Süre dolunca tek
+ * bir deneme isteğine izin verilir (half-open): başarılıysa devre kapanır,
+ * değilse tekrar açılır.
+ *
+ * tolerance.conf ayarları:
+ *   CB_FAILURE_THRESHOLD=3
+ *   CB_OPEN_MS=5000
+ */
+public class CircuitBreakers {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public CircuitBreakers() {
+        this(ToleranceConfig.getInt("CB_FAILURE_THRESHOLD", 3),
+                ToleranceConfig.getLong("CB_OPEN_MS", 5000));
+    }
+
+    public CircuitBreakers(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Üyeye istek gönderilebilir mi? Açık devrede bekleme süresi dolmuşsa
+     * tek bir deneme isteğine izin verir.
+     */
+    public boolean allowRequest(NodeInfo member) {
+        Breaker breaker = breakers.get(key(member));
+        if (breaker == null || breaker.allow(openMillis)) {
+            return true;
+        }
+        skipped.incrementAndGet();
+        return false;
+    }
+
+    // Devresi açık olmayanlar önce, açık olanlar sonda (sıra korunur)
+    public List<NodeInfo> order(List<NodeInfo> members) {
+        List<NodeInfo> healthy = new ArrayList<>(members.size());
+        List<NodeInfo> tripped = new ArrayList<>();
+        for (NodeInfo member : members) {
+            Breaker breaker = breakers.get(key(member));
+            if (breaker != null && breaker.isOpen(openMillis)) {
+                tripped.add(member);
+            } else {
+                healthy.add(member);
+            }
+        }
+        healthy.addAll(tripped);
+        return healthy;
+    }
+
+    public void onSuccess(NodeInfo member) {
+        Breaker breaker = breakers.get(key(member));
+        if (breaker != null) {
+            breaker.success();
+        }
+    }
+
+    /**
+     * Sadece zaman aşımı ve bağlantı hataları sayılır; uygulama seviyesindeki
+     * hatalar (örn. INTERNAL) üyenin canlı olduğunu gösterir.
+     */
+    public void onFailure(NodeInfo member, Throwable error) {
+        if (!isConnectivityFailure(error)) {
+            onSuccess(member);
+            return;
+        }
+        Breaker breaker = breakers.computeIfAbsent(key(member), k -> new Breaker());
+        if (breaker.failure(failureThreshold)) {
+            opened.incrementAndGet();
+            Log.warn("Circuit opened for %s:%d (%d ms)",
+                    member.getHost(), member.getPort(), openMillis);
+        }
+    }
+
+    // Üye aileden çıkarıldığında durumu unutulur
+    public void forget(NodeInfo member) {
+        breakers.remove(key(member));
+    }
+
+    public String statsReport() {
+        int open = 0;
+        for (Breaker breaker : breakers.values()) {
+            if (breaker.isOpen(openMillis)) {
+                open++;
+            }
+        }
+        return String.format("Açık devre: %d | Açılma: %d | Atlanan istek: %d (eşik %d, süre %d ms)%n",
+                open, opened.get(), skipped.get(), failureThreshold, openMillis);
+    }
+
+    static boolean isConnectivityFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        Status.Code code = Status.fromThrowable(error).getCode();
+        return code == Status.Code.DEADLINE_EXCEEDED || code == Status.Code.UNAVAILABLE;
+    }
+
+    private static String key(NodeInfo member) {
+        return member.getHost() + ":" + member.getPort();
+    }
+
+    private static final class Breaker {
+        private State state = State.CLOSED;
+        private int consecutiveFailures = 0;
+        private long openedAt = 0;
+
+        synchronized boolean allow(long openMillis) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                // Deneme isteği: sonucu gelene kadar başka istek geçmez
+                state = State.HALF_OPEN;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isOpen(long openMillis) {
+            return state == State.HALF_OPEN
+                    || (state == State.OPEN && System.currentTimeMillis() - openedAt < openMillis);
+        }
+
+        synchronized void success() {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+        }
+
+        // Devre bu hatayla açıldıysa true
+        synchronized boolean failure(int threshold) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= threshold)) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.family;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Liderin istemci portlarında (metin ve ikili) bağlantı sınırı ve istemci
+ * IP'si başına hız sınırı.
+ *
+ * Toplam açık bağlantı MAX_CONNECTIONS'ı aşamaz. Her IP'nin iki token
+ * bucket'ı vardır: komut sayısı (CLIENT_OPS_PER_SEC) ve komut baytı
+ * (CLIENT_BYTES_PER_SEC). Bayt bucket'ı borca girebilir: bucket boş değilse
+ * büyük bir değer (1 MB SET) kabul edilir, sonraki komutlar borç kapanana
+ * kadar reddedilir. Böylece burst'ten büyük değerler de yazılabilir ama
+ * ortalama hız sınırı aşılamaz. Sınır aşılınca komut işlenmez, istemciye
+ * ERROR cevabı döner.
+ *
+ * tolerance.conf ayarları (0 = sınırsız):
+ *   MAX_CONNECTIONS=1024
+ *   CLIENT_OPS_PER_SEC=0           (hız sınırları varsayılan kapalı)
+ *   CLIENT_OPS_BURST=<CLIENT_OPS_PER_SEC>
+ *   CLIENT_BYTES_PER_SEC=0
+ *   CLIENT_BYTES_BURST=<CLIENT_BYTES_PER_SEC>
+ * Hız sınırını açmak için ilgili _PER_SEC değeri verilir, ör.
+ * CLIENT_OPS_PER_SEC=20000 ve CLIENT_BYTES_PER_SEC=67108864; burst verilmezse
+ * bir saniyelik hız kadardır. Aynı IP'den gelen (NAT arkasındaki) bütün
+ * istemciler aynı bucket'ı paylaşır.
+ */
+public class ClientLimiter {
+
+    // Bağlantısı kalmamış, o an kullanılmayan ve bucket'ları dolmuş IP'ler bu aralıkla temizlenir
+    private static final long SWEEP_INTERVAL_NANOS = 10_000_000_000L;
+
+    private final int maxConnections;
+    private final double opsPerSecond;
+    private final double opsBurst;
+    private final double bytesPerSecond;
+    private final double bytesBurst;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Map<InetAddress, Client> clients = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    private final AtomicLong rejectedConnections = new AtomicLong();
+    private final AtomicLong rejectedOps = new AtomicLong();
+    private final AtomicLong rejectedBytes = new AtomicLong();
+
+    public ClientLimiter(int maxConnections, double opsPerSecond, double opsBurst,
+            double bytesPerSecond, double bytesBurst) {
+        this.maxConnections = maxConnections;
+        this.opsPerSecond = opsPerSecond;
+        this.opsBurst = Math.max(1, opsBurst);
+        this.bytesPerSecond = bytesPerSecond;
+        this.bytesBurst = Math.max(1, bytesBurst);
+    }
+
+    public static ClientLimiter fromConfig() {
+        long ops = ToleranceConfig.getLong("CLIENT_OPS_PER_SEC", 0);
+        long bytes = ToleranceConfig.getLong("CLIENT_BYTES_PER_SEC", 0);
+        return new ClientLimiter(
+                ToleranceConfig.getInt("MAX_CONNECTIONS", 1024),
+                ops, ToleranceConfig.getLong("CLIENT_OPS_BURST", ops),
+                bytes, ToleranceConfig.getLong("CLIENT_BYTES_BURST", bytes));
+    }
+
+    private final class Client {
+        int connections;
+        // checkCommand'ın elinde olduğu süre > 0; bu sırada temizlenmez
+        final AtomicInteger inUse = new AtomicInteger();
+        double opsTokens = opsBurst;
+        double byteTokens = bytesBurst;
+        long lastRefill = System.nanoTime();
+
+        // Geçen süre kadar token ekle (burst'ü aşmadan)
+        void refill(long now) {
+            double seconds = (now - lastRefill) / 1_000_000_000.0;
+            lastRefill = now;
+            opsTokens = Math.min(opsBurst, opsTokens + seconds * opsPerSecond);
+            byteTokens = Math.min(bytesBurst, byteTokens + seconds * bytesPerSecond);
+        }
+
+        boolean idle() {
+            return connections == 0 && inUse.get() == 0 && opsTokens >= opsBurst && byteTokens >= bytesBurst;
+        }
+    }
+
+    /**
+     * Yeni bağlantı kabul edilebilir mi; true dönerse bağlantı kapanınca
+     * {@link #releaseConnection} çağrılmalıdır.
+     */
+    public boolean tryAcquireConnection(InetAddress address) {
+        if (maxConnections > 0 && connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejectedConnections.incrementAndGet();
+            return false;
+        } else if (maxConnections <= 0) {
+            connections.incrementAndGet();
+        }
+        // compute anahtar kilidi altında çalışır; temizlikle yarışmaz
+        clients.compute(address, (a, client) -> {
+            Client c = client == null ? new Client() : client;
+            c.connections++;
+            return c;
+        });
+        sweepIfDue();
+        return true;
+    }
+
+    public void releaseConnection(InetAddress address) {
+        connections.decrementAndGet();
+        clients.computeIfPresent(address, (a, client) -> {
+            client.connections--;
+            return client;
+        });
+    }
+
+    /**
+     * Komutu sayar; izin varsa null, sınır aşıldıysa ERROR cevabında
+     * gösterilecek sebebi döner.
+     */
+    public String checkCommand(InetAddress address, int bytes) {
+        if (opsPerSecond <= 0 && bytesPerSecond <= 0) {
+            return null;
+        }
+        // Kayıt anahtar kilidi altında işaretlenir: temizlik, harcanan token'ları
+        // taşıyan kaydı biz kullanırken map'ten atamaz
+        Client client = clients.compute(address, (a, c) -> {
+            Client x = c == null ? new Client() : c;
+            x.inUse.incrementAndGet();
+            return x;
+        });
+        try {
+            synchronized (client) {
+                client.refill(System.nanoTime());
+                if (opsPerSecond > 0 && client.opsTokens < 1) {
+                    rejectedOps.incrementAndGet();
+                    return "Rate limit exceeded (" + (long) opsPerSecond + " ops/s per client)";
+                }
+                if (bytesPerSecond > 0 && client.byteTokens <= 0) {
+                    rejectedBytes.incrementAndGet();
+                    return "Rate limit exceeded (" + (long) bytesPerSecond + " bytes/s per client)";
+                }
+                if (opsPerSecond > 0) {
+                    client.opsTokens -= 1;
+                }
+                if (bytesPerSecond > 0) {
+                    // Borca girebilir (bkz. sınıf açıklaması)
+                    client.byteTokens -= bytes;
+                }
+            }
+            return null;
+        } finally {
+            client.inUse.decrementAndGet();
+        }
+    }
+
+    private void sweepIfDue() {
+        long now = System.nanoTime();
+        if (now - lastSweep < SWEEP_INTERVAL_NANOS) {
+            return;
+        }
+        lastSweep = now;
+        for (InetAddress address : clients.keySet()) {
+            clients.computeIfPresent(address, (a, client) -> {
+                synchronized (client) {
+                    client.refill(now);
+                    return client.idle() ? null : client;
+                }
+            });
+        }
+    }
+
+    // Metin protokolü için reddetme cevabı
+    public static byte[] textError(String reason) {
+        return ("ERROR: " + reason + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String statsReport() {
+        return String.format("Açık bağlantı: %d/%s | İstemci IP: %d | Reddedilen bağlantı: %d | Reddedilen komut (ops): %d | Reddedilen komut (bytes): %d%n",
+                connections.get(), maxConnections > 0 ? String.valueOf(maxConnections) : "∞", clients.size(),
+                rejectedConnections.get(), rejectedOps.get(), rejectedBytes.get());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.family;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bağlantı başına tek, tamponlu cevap yazıcısı.
+ *
+ * Cevaplar önce tampona eklenir; soket write'ı (syscall) ancak bir tur
+ * bittiğinde yapılır. Arkadan başka cevap gelmesi beklenmiyorsa hemen,
+ * bekleniyorsa en geç flushDelayMicros sonra. Böylece pipeline'lı veya
+ * hızlı istemcilerde birden çok cevap tek write ile gider.
+ * flushDelayMicros 0 ise her cevap hemen yazılır (birleştirme yok).
+ *
+ * synchronized yerine ReentrantLock: soket write'ı bloklarsa sanal thread
+ * taşıyıcı thread'e sabitlenmez (pinning), park eder.
+ */
+public class CoalescingWriter {
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final long flushDelayMicros;
+    private final ScheduledExecutorService timer;
+    private final byte[] buffer;
+    private int count = 0;
+    private boolean flushScheduled = false;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public CoalescingWriter(Socket socket, int bufferSize, long flushDelayMicros,
+            ScheduledExecutorService timer) throws IOException {
+        this.socket = socket;
+        this.out = socket.getOutputStream();
+        this.flushDelayMicros = timer == null ? 0 : flushDelayMicros;
+        this.timer = timer;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public void write(byte[] response) throws IOException {
+        lock.lock();
+        try {
+            TextWriteStats.onResponse();
+            if (count + response.length > buffer.length) {
+                flush();
+                if (response.length >= buffer.length) {
+                    // Tampondan büyük cevap (büyük GET değeri): kopyalamadan doğrudan yaz
+                    out.write(response);
+                    TextWriteStats.onWrite();
+                    return;
+                }
+            }
+            System.arraycopy(response, 0, buffer, count, response.length);
+            count += response.length;
+            if (flushDelayMicros <= 0) {
+                flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bir grup cevap yazıldı. moreExpected false ise hemen, true ise en geç
+     * flushDelayMicros sonra soket'e yazılır.
+     */
+    public void endOfBatch(boolean moreExpected) throws IOException {
+        lock.lock();
+        try {
+            if (!moreExpected || flushDelayMicros <= 0) {
+                flush();
+                return;
+            }
+            if (!flushScheduled && count > 0) {
+                flushScheduled = true;
+                timer.schedule(this::timedFlush, flushDelayMicros, TimeUnit.MICROSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            if (count > 0) {
+                out.write(buffer, 0, count);
+                count = 0;
+                TextWriteStats.onWrite();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void timedFlush() {
+        lock.lock();
+        try {
+            flushScheduled = false;
+            flush();
+        } catch (IOException e) {
+            // Okuyan thread bir sonraki read'de hatayı görür
+            Log.warn("TCP client write error: %s", e.getMessage());
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
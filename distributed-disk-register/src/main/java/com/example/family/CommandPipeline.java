@@ -0,0 +1,204 @@
+package com.example.family;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import com.example.family.SetGetCommand.CommandParser;
+
+/**
+ * Tek bir metin bağlantısının pipeline'ı.
+ *
+ * Bağlantıdan gelen komutlar worker havuzunda aynı anda çalışır (farklı
+ * anahtarların replikasyonları paralel ilerler), ama cevaplar istek sırasıyla
+ * yazılır: baştaki komut bitmeden arkadakilerin cevabı bekletilir. Aynı
+ * anahtara gelen komutlar (SET 5 ... / GET 5) birbirinin ardından çalışır,
+ * böylece bir GET kendinden önceki SET'i her zaman görür. Çok anahtarlı
+ * komutlar (MSET/MGET) bariyerdir: öncekilerin hepsi bitince çalışır,
+ * sonrakiler de onun bitmesini bekler.
+ *
+ * Aynı anda en fazla kaç komutun işlemde olacağını çağıran sınırlar
+ * ({@link #inFlight()}); tamamlanan komutlar onReleased ile bildirilir.
+ *
+ * Cevaplar kilit dışında yazılır (sink soket write'ı ve flush yapabilir;
+ * okuyan thread'in submit'i bu sırada beklemesin). Sırayı tek yazan korur:
+ * aynı anda yalnız bir thread drain eder, diğerleri onun yeniden bakmasına
+ * bırakır.
+ */
+public class CommandPipeline {
+
+    private final TextServer.Handler handler;
+    private final Executor workers;
+    private final Consumer<byte[]> sink;
+    private final IntConsumer onReleased;
+
+    // İstek sırasıyla bekleyen sonuçlar
+    private final ArrayDeque<CompletableFuture<byte[]>> inOrder = new ArrayDeque<>();
+    // Anahtar başına son komut (aynı anahtardakiler zincirlenir)
+    private final Map<Integer, CompletableFuture<byte[]>> lastByKey = new HashMap<>();
+    // Son çok anahtarlı komut (bitene kadar herkes bekler)
+    private CompletableFuture<byte[]> barrier;
+    // Bir thread cevapları yazıyor (kilit dışında); diğerleri drain etmez
+    private boolean draining = false;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param sink       cevapları istek sırasıyla alır (null cevaplar atlanır)
+     * @param onReleased sırası gelip cevabı verilen komut sayısı
+     */
+    public CommandPipeline(TextServer.Handler handler, Executor workers,
+            Consumer<byte[]> sink, IntConsumer onReleased) {
+        this.handler = handler;
+        this.workers = workers;
+        this.sink = sink;
+        this.onReleased = onReleased;
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inOrder.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void submit(byte[] line) {
+        CompletableFuture<byte[]> result;
+        lock.lock();
+        try {
+            result = submitLocked(line);
+        } finally {
+            lock.unlock();
+        }
+        // Kilit dışında: hemen bitmiş komutun drain'i submit'in kilidini tutmasın
+        result.whenComplete((r, e) -> drain());
+    }
+
+    private CompletableFuture<byte[]> submitLocked(byte[] line) {
+        Integer key = CommandParser.keyOf(line);
+        boolean multiKey = key == null && CommandParser.isMultiKey(line);
+
+        CompletableFuture<?> previous;
+        if (multiKey) {
+            previous = inOrder.isEmpty() ? null
+                    : CompletableFuture.allOf(inOrder.toArray(new CompletableFuture<?>[0]));
+        } else {
+            previous = key == null ? null : lastByKey.get(key);
+            if (previous == null && barrier != null && !barrier.isDone()) {
+                previous = barrier;
+            }
+        }
+
+        CompletableFuture<byte[]> result;
+        try {
+            if (previous == null) {
+                result = CompletableFuture.supplyAsync(() -> handle(line), workers);
+            } else {
+                // Önceki komutun sonucu ne olursa olsun ardından çalış
+                result = previous.handle((r, e) -> null).thenApplyAsync(ignored -> handle(line), workers);
+            }
+        } catch (RuntimeException e) {
+            // Executor reddetti (kapanıyor)
+            result = CompletableFuture.completedFuture(error("Server busy"));
+        }
+
+        if (multiKey) {
+            // Bariyerden önceki anahtar zincirleri artık bariyere dahil
+            barrier = result;
+            lastByKey.clear();
+        } else if (key != null) {
+            lastByKey.put(key, result);
+            CompletableFuture<byte[]> mine = result;
+            result.whenComplete((r, e) -> forget(key, mine));
+        }
+        inOrder.add(result);
+        return result;
+    }
+
+    /**
+     * İşlenmeden cevaplanan komut (örn. hız sınırı reddi): cevabı hazırdır
+     * ama yine de sırası gelince yazılır.
+     */
+    public void submitResponse(byte[] response) {
+        lock.lock();
+        try {
+            inOrder.add(CompletableFuture.completedFuture(response));
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private byte[] handle(byte[] line) {
+        try {
+            return handler.handle(line);
+        } catch (RuntimeException e) {
+            return error(e.getMessage());
+        }
+    }
+
+    private void forget(Integer key, CompletableFuture<byte[]> future) {
+        lock.lock();
+        try {
+            lastByKey.remove(key, future);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Baştan itibaren biten komutların cevaplarını sırayla ver. Cevaplar kilit
+    // altında kuyruktan alınır, kilit bırakılıp yazılır; yazan thread bitince
+    // tekrar bakar, bu arada biten komutlar da böylece sırayla gider.
+    private void drain() {
+        lock.lock();
+        try {
+            if (draining) {
+                return;
+            }
+            draining = true;
+            try {
+                while (true) {
+                    List<byte[]> responses = new ArrayList<>();
+                    int released = 0;
+                    while (!inOrder.isEmpty() && inOrder.peek().isDone()) {
+                        CompletableFuture<byte[]> head = inOrder.poll();
+                        byte[] response = head.isCompletedExceptionally() ? error("Command failed") : head.join();
+                        released++;
+                        if (response != null) {
+                            responses.add(response);
+                        }
+                    }
+                    if (released == 0) {
+                        return;
+                    }
+                    lock.unlock();
+                    try {
+                        for (byte[] response : responses) {
+                            sink.accept(response);
+                        }
+                        onReleased.accept(released);
+                    } finally {
+                        lock.lock();
+                    }
+                }
+            } finally {
+                draining = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] error(String message) {
+        return ("ERROR: " + message + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -8,6 +8,7 @@ import family.NodeInfo;
 import java.util.HashMap;
 import java.util.Map;
 
+import family.ChatBatch;
 import family.ChatMessage;
 import io.grpc.stub.StreamObserver;
 
@@ -177,13 +178,26 @@ public class FamilyServiceImpl extends FamilyServiceGrpc.FamilyServiceImplBase {
     // Diğer düğümlerden broadcast mesajı geldiğinde
     @Override
     public void receiveChat(ChatMessage request, StreamObserver<Empty> responseObserver) {
-        System.out.println("💬 Incoming message:");
-        System.out.println("  From: " + request.getFromHost() + ":" + request.getFromPort());
-        System.out.println("  Text: " + request.getText());
-        System.out.println("  Timestamp: " + request.getTimestamp());
-        System.out.println("--------------------------------------");
+        printChat(request);
 
         responseObserver.onNext(Empty.newBuilder().build());
         responseObserver.onCompleted();
     }
+
+    // Liderin biriktirip toplu gönderdiği broadcast mesajları
+    @Override
+    public void receiveChatBatch(ChatBatch request, StreamObserver<Empty> responseObserver) {
+        for (ChatMessage message : request.getMessagesList()) {
+            printChat(message);
+        }
+
+        responseObserver.onNext(Empty.newBuilder().build());
+        responseObserver.onCompleted();
+    }
+
+    private static void printChat(ChatMessage request) {
+        // Tek satır, metin kırpılır (değer içerebilir)
+        Log.info("💬 Incoming message from %s:%d @%d: %s",
+                request.getFromHost(), request.getFromPort(), request.getTimestamp(), request.getText());
+    }
 }
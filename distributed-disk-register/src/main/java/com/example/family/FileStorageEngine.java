@@ -0,0 +1,242 @@
+package com.example.family;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import family.Codec;
+import family.StoredMessage;
+
+/**
+ * Anahtar başına bir dosya: dir/&lt;id&gt;.msg (eski varsayılan düzen).
+ *
+ * Yazma dosyayı açıp başlık + değeri tek gathering write ile yazar ve
+ * kapatır; okuma dosyanın tamamını okur. Çok sayıda anahtarda dizin milyonlarca
+ * dosya (inode) içerir.
+ *
+ * Kayıt biçimi: [RECORD_MAGIC][codec][değer baytları]
+ * Başlıksız dosyalar eski biçimdir ve düz metin kabul edilir.
+ *
+ * Dayanıklılık: sync modunda her put dosyayı force() eder, yeni
+ * dosyada dizin de senkronlanır. Her anahtar ayrı dosya olduğu için tek
+ * force() ile indirilecek ortak bir dosya yok; group modu sync gibi çalışır.
+ */
+public class FileStorageEngine implements StorageEngine {
+
+    static final byte RECORD_MAGIC = 0x7F;
+    static final int RECORD_HEADER_SIZE = 2;
+
+    private final File dir;
+    private final boolean sync;
+
+    public FileStorageEngine(File dir) throws IOException {
+        this(dir, Durability.NONE);
+    }
+
+    public FileStorageEngine(File dir, Durability durability) throws IOException {
+        this.dir = dir;
+        this.sync = durability != Durability.NONE;
+        if (durability == Durability.GROUP) {
+            System.out.println("STORAGE_DURABILITY=group: file engine syncs every write (one file per key)");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create storage directory " + dir);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    private static ByteBuffer recordHeader(Codec codec) {
+        return ByteBuffer.wrap(new byte[] { RECORD_MAGIC, (byte) codec.getNumber() });
+    }
+
+    private File file(int id) {
+        return new File(dir, id + ".msg");
+    }
+
+    // Değer kopyalanmadan yazılır. Dosya başına mmap kullanılmaz: map GC'ye
+    // kadar kalır ve yoğun yazmada process'in map sınırı (vm.max_map_count) dolar.
+    @Override
+    public void put(int id, Codec codec, ByteString data) throws IOException {
+        File file = file(id);
+        boolean created = sync && !file.exists();
+        List<ByteBuffer> parts = data.asReadOnlyByteBufferList();
+        ByteBuffer[] buffers = new ByteBuffer[1 + parts.size()];
+        buffers[0] = recordHeader(codec);
+        for (int i = 0; i < parts.size(); i++) {
+            buffers[1 + i] = parts.get(i).duplicate();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long remaining = RECORD_HEADER_SIZE + (long) data.size();
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            // Önceki değer daha uzunsa kuyruğu kalmasın
+            channel.truncate(RECORD_HEADER_SIZE + (long) data.size());
+            if (sync) {
+                channel.force(false);
+            }
+        }
+        if (created) {
+            syncDirectory();
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    @Override
+    public StoredMessage get(int id) throws IOException {
+        File file = file(id);
+        if (!file.exists()) {
+            return null;
+        }
+        return parse(id, Files.readAllBytes(file.toPath()));
+    }
+
+    static StoredMessage parse(int id, byte[] record) throws IOException {
+        StoredMessage.Builder message = StoredMessage.newBuilder().setId(id);
+        // Okunan dizi başka yerde kullanılmıyor: kopyalamadan ByteString'e sar
+        if (record.length >= RECORD_HEADER_SIZE && record[0] == RECORD_MAGIC) {
+            return message.setCodec(PayloadCodec.codecOf(record[1]))
+                    .setPayload(UnsafeByteOperations.unsafeWrap(record, RECORD_HEADER_SIZE,
+                            record.length - RECORD_HEADER_SIZE))
+                    .build();
+        }
+        // Başlıksız eski kayıt: ham baytlar
+        return message.setPayload(UnsafeByteOperations.unsafeWrap(record)).build();
+    }
+
+    @Override
+    public long valueSize(int id) {
+        File file = file(id);
+        // Başlıksız eski kayıtlarda en fazla 2 B eksik; eşik karşılaştırması için yeterli
+        return file.exists() ? Math.max(0, file.length() - RECORD_HEADER_SIZE) : -1;
+    }
+
+    // Parçalar geçici dosyaya yazılır, commit'te dosya atomik olarak <id>.msg yerine taşınır
+    @Override
+    public ChunkedWrite beginChunked(int id, Codec codec, long totalSize) throws IOException {
+        File tempFile = File.createTempFile(id + ".msg.", ".part", dir);
+        FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE);
+        channel.write(recordHeader(codec));
+        return new ChunkedWrite() {
+            private long written = 0;
+
+            @Override
+            public void write(ByteString data) throws IOException {
+                for (ByteBuffer part : data.asReadOnlyByteBufferList()) {
+                    while (part.hasRemaining()) {
+                        written += channel.write(part);
+                    }
+                }
+            }
+
+            @Override
+            public void commit() throws IOException {
+                if (written != totalSize) {
+                    abort();
+                    throw new IOException("Value for " + id + " incomplete: " + written + "/" + totalSize + " B");
+                }
+                // Taşımadan önce içerik diskte olmalı: yoksa çökmede yeni ad boş dosyayı gösterebilir
+                if (sync) {
+                    channel.force(false);
+                }
+                channel.close();
+                Files.move(tempFile.toPath(), file(id).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (sync) {
+                    syncDirectory();
+                }
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+                tempFile.delete();
+            }
+        };
+    }
+
+    @Override
+    public ValueReader openReader(int id) throws IOException {
+        File file = file(id);
+        if (!file.exists()) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        Codec codec;
+        try {
+            // Kayıt başlığını atla
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            channel.read(header);
+            if (header.position() == RECORD_HEADER_SIZE && header.get(0) == RECORD_MAGIC) {
+                codec = PayloadCodec.codecOf(header.get(1));
+            } else {
+                codec = Codec.NONE;
+                channel.position(0); // başlıksız eski kayıt
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        long size = channel.size() - channel.position();
+        return new ValueReader() {
+            @Override
+            public Codec codec() {
+                return codec;
+            }
+
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                return channel.read(dst);
+            }
+
+            @Override
+            public void close() {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        String[] names = dir.list((d, name) -> name.endsWith(".msg"));
+        return names == null ? 0 : names.length;
+    }
+
+    @Override
+    public String statsReport() {
+        return String.format("Dosya: %d (%s)%n", size(), dir);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.family;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit: eşzamanlı yazanların kayıtlarını tek bir force() ile diske
+ * indirir. Yazan, kaydını dosyaya yazdıktan sonra kaydın bittiği sırayla
+ * {@link #awaitDurable} çağırır ve o sıra diske inene kadar bekler; beklemek
+ * istemeyen (ör. replikasyon stream'i) {@link #durable} ile bir future alır.
+ *
+ * Arka plandaki flusher thread'i bekleyen ilk yazıdan itibaren en fazla
+ * maxDelay bekler (ya da bekleyen bayt maxBytes'a ulaşınca hemen başlar),
+ * sonra tek force() yapar ve o ana kadar yazılan herkesi uyandırır. force()
+ * sürerken gelen yazılar bir sonraki gruba kalır; maxDelay=0'da gruplar
+ * sadece böyle oluşur ve tek yazan sync modundaki kadar bekler.
+ *
+ * force() bir kez hata verirse hata kalıcıdır: sayfa önbelleğinin durumu
+ * bilinmediği için sonraki bütün yazılar da hata alır.
+ */
+final class GroupCommit implements Closeable {
+
+    /** Yazılmış her şeyi diske indirir; diske inen son sırayı döner. */
+    interface Syncer {
+        long sync() throws IOException;
+    }
+
+    private final Syncer syncer;
+    private final long maxDelayNanos;
+    private final long maxBytes;
+    private final Thread flusher;
+
+    // Bekleyenler ve flusher bu kilit altında; Condition virtual thread'i pinlemez
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private long durable = 0;
+    private long pendingBytes = 0;
+    private long oldestPendingNanos = 0;
+    private IOException failure;
+    private boolean closed = false;
+    // durable() ile bekleyenler, kayıt sırasıyla
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    private static final class Waiter {
+        final long sequence;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        // takeReady'de belirlenir; null = diske indi
+        IOException error;
+
+        Waiter(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    GroupCommit(String name, Syncer syncer, long maxDelayMillis, long maxBytes) {
+        this.syncer = syncer;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+        this.maxBytes = Math.max(1, maxBytes);
+        flusher = new Thread(this::flushLoop, name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /** sequence'a kadar yazılanlar diske inene kadar bekler. */
+    void awaitDurable(long sequence, long bytes) throws IOException {
+        lock.lock();
+        try {
+            if (sequence <= durable) {
+                commits.incrementAndGet(); // önceki grubun force()'u bu yazıyı da kapsadı
+                return;
+            }
+            if (pendingBytes == 0) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            pendingBytes += bytes;
+            pending.signal();
+            while (durable < sequence) {
+                if (failure != null) {
+                    throw new IOException("Sync failed: " + failure.getMessage(), failure);
+                }
+                if (closed) {
+                    throw new IOException("Store closed before the write was synced");
+                }
+                synced.awaitUninterruptibly();
+            }
+            commits.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * awaitDurable'ın beklemeyen hali: sequence diske inince tamamlanan future.
+     * Future flusher thread'inde tamamlanır; ona bağlanan iş kısa olmalı.
+     */
+    CompletableFuture<Void> durable(long sequence, long bytes) {
+        lock.lock();
+        try {
+            if (sequence <= durable) {
+                commits.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }
+            if (failure != null) {
+                return CompletableFuture.failedFuture(new IOException("Sync failed: " + failure.getMessage(), failure));
+            }
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Store closed before the write was synced"));
+            }
+            if (pendingBytes == 0) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            pendingBytes += bytes;
+            Waiter waiter = new Waiter(sequence);
+            waiters.add(waiter);
+            pending.signal();
+            return waiter.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (!closed && failure == null) {
+                if (pendingBytes == 0) {
+                    pending.awaitUninterruptibly();
+                    continue;
+                }
+                // Grubu doldurmak için bekle: süre ya da bayt sınırı
+                long wait;
+                while (!closed && pendingBytes < maxBytes
+                        && (wait = oldestPendingNanos + maxDelayNanos - System.nanoTime()) > 0) {
+                    pending.awaitNanos(wait);
+                }
+                pendingBytes = 0;
+                lock.unlock();
+                long sequence;
+                IOException error = null;
+                try {
+                    sequence = syncer.sync();
+                } catch (IOException e) {
+                    sequence = -1;
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                syncs.incrementAndGet();
+                if (error != null) {
+                    Log.error("Storage sync failed: %s", error.getMessage());
+                    failure = error;
+                } else {
+                    durable = Math.max(durable, sequence);
+                }
+                synced.signalAll();
+                List<Waiter> ready = takeReady();
+                if (!ready.isEmpty()) {
+                    // Future'lara bağlı işler kilit dışında çalışsın
+                    lock.unlock();
+                    try {
+                        complete(ready);
+                    } finally {
+                        lock.lock();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+            synced.signalAll();
+            List<Waiter> ready = takeReady();
+            lock.unlock();
+            complete(ready);
+        }
+    }
+
+    // lock altında: diske inmiş (ya da hata/kapanış yüzünden hiç inmeyecek) bekleyenler.
+    // Farklı thread'lerin kayıt sırası sequence sırası olmayabilir: hepsine bakılır.
+    private List<Waiter> takeReady() {
+        List<Waiter> ready = new ArrayList<>();
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext();) {
+            Waiter waiter = it.next();
+            if (waiter.sequence <= durable) {
+                commits.incrementAndGet();
+            } else if (failure != null) {
+                waiter.error = new IOException("Sync failed: " + failure.getMessage(), failure);
+            } else if (closed) {
+                waiter.error = new IOException("Store closed before the write was synced");
+            } else {
+                continue;
+            }
+            it.remove();
+            ready.add(waiter);
+        }
+        return ready;
+    }
+
+    private static void complete(List<Waiter> ready) {
+        for (Waiter waiter : ready) {
+            if (waiter.error == null) {
+                waiter.future.complete(null);
+            } else {
+                waiter.future.completeExceptionally(waiter.error);
+            }
+        }
+    }
+
+    // Ortalama grup boyu = commits / syncs
+    String statsReport() {
+        long s = syncs.get();
+        return String.format("Group commit: %d force() | %d yazı | grup başına %.1f%n",
+                s, commits.get(), s == 0 ? 0.0 : commits.get() / (double) s);
+    }
+
+    // Bekleyen grup varsa önce diske indirilir
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            while (pendingBytes > 0 && failure == null && flusher.isAlive()) {
+                oldestPendingNanos = System.nanoTime() - maxDelayNanos;
+                pending.signal();
+                synced.awaitUninterruptibly();
+            }
+            closed = true;
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.family;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.grpc.BindableService;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * gRPC sunucu (ve istemci kanalları) için taşıma katmanı ayarları.
+ *
+ * Boss/worker event loop grupları bir kez oluşturulur ve hem sunucu hem
+ * ChannelPool'daki istemci kanalları tarafından paylaşılır. Servis
+ * handler'larının (örn. StorageServiceImpl.store içindeki disk yazması)
+ * hangi executor'da çalışacağı da buradan seçilir.
+ *
+ * tolerance.conf ayarları:
+ *   SERVER_TRANSPORT=auto | nio | epoll     (auto: Linux'ta epoll varsa epoll)
+ *   SERVER_EVENT_LOOP_THREADS=<çekirdek sayısı>
+ *   SERVER_EXECUTOR=default | bounded | virtual
+ *   SERVER_EXECUTOR_THREADS=<2 x çekirdek>
+ *   SERVER_EXECUTOR_QUEUE=1024      (bounded: bu kadar iş bekliyorsa yeni RPC'ler
+ *                                    RESOURCE_EXHAUSTED ile hemen reddedilir)
+ *
+ * virtual: Java 21+ ile çalışırken RPC başına sanal thread (java21 profili).
+ * İstemci kanallarının callback'leri (replikasyon cevapları) de sanal
+ * thread'lerde çalışır. Daha eski JVM'de bounded'a düşülür.
+ */
+public class GrpcTransport {
+
+    public enum Transport { NIO, EPOLL }
+
+    public enum ExecutorMode { DEFAULT, BOUNDED, VIRTUAL }
+
+    private final Transport transport;
+    private final ExecutorMode executorMode;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final ExecutorService executor;
+    // Sadece bounded modda: yük atma için kuyruk boyuna bakılır
+    private final ThreadPoolExecutor bounded;
+    private final int maxBacklog;
+
+    public GrpcTransport(Transport transport, int eventLoopThreads,
+            ExecutorMode executorMode, int executorThreads, int executorQueue) {
+        if (transport == Transport.EPOLL && !Epoll.isAvailable()) {
+            System.err.println("Epoll transport not available, falling back to NIO: " + Epoll.unavailabilityCause());
+            transport = Transport.NIO;
+        }
+        this.transport = transport;
+
+        int workers = eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors();
+        if (transport == Transport.EPOLL) {
+            bossGroup = new EpollEventLoopGroup(1, daemonFactory("grpc-boss"));
+            workerGroup = new EpollEventLoopGroup(workers, daemonFactory("grpc-worker"));
+        } else {
+            bossGroup = new NioEventLoopGroup(1, daemonFactory("grpc-boss"));
+            workerGroup = new NioEventLoopGroup(workers, daemonFactory("grpc-worker"));
+        }
+
+        ExecutorService virtual = executorMode == ExecutorMode.VIRTUAL ? VirtualThreads.newExecutor() : null;
+        if (executorMode == ExecutorMode.VIRTUAL && virtual == null) {
+            System.err.println("Virtual threads need Java 21+, falling back to bounded executor");
+            executorMode = ExecutorMode.BOUNDED;
+        }
+        this.executorMode = executorMode;
+
+        this.maxBacklog = Math.max(1, executorQueue);
+        if (executorMode == ExecutorMode.VIRTUAL) {
+            executor = virtual;
+            bounded = null;
+        } else if (executorMode == ExecutorMode.BOUNDED) {
+            int threads = executorThreads > 0 ? executorThreads : 2 * Runtime.getRuntime().availableProcessors();
+            // Executor'a gelen işler gRPC'nin kendi işleri (çağrı başlatma, kapanış bildirimi):
+            // reddedilirse çağrı deadline'a kadar asılı kalır, event loop'ta çalıştırılırsa
+            // handler işi ağ thread'ini tutar. Kuyruk bu yüzden sınırsız; sınırı LoadShedder
+            // çağrı seviyesinde uygular.
+            bounded = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    daemonFactory("grpc-handler"));
+            executor = bounded;
+        } else {
+            executor = null; // gRPC'nin varsayılan cached thread pool'u
+            bounded = null;
+        }
+    }
+
+    public static GrpcTransport fromConfig() {
+        String t = ToleranceConfig.getString("SERVER_TRANSPORT", "auto");
+        Transport transport;
+        if (t.equalsIgnoreCase("epoll")) {
+            transport = Transport.EPOLL;
+        } else if (t.equalsIgnoreCase("nio")) {
+            transport = Transport.NIO;
+        } else {
+            transport = Epoll.isAvailable() ? Transport.EPOLL : Transport.NIO;
+        }
+
+        ExecutorMode mode;
+        try {
+            mode = ExecutorMode.valueOf(ToleranceConfig.getString("SERVER_EXECUTOR", "default").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid SERVER_EXECUTOR value in config, using default");
+            mode = ExecutorMode.DEFAULT;
+        }
+
+        return new GrpcTransport(transport,
+                ToleranceConfig.getInt("SERVER_EVENT_LOOP_THREADS", 0),
+                mode,
+                ToleranceConfig.getInt("SERVER_EXECUTOR_THREADS", 0),
+                ToleranceConfig.getInt("SERVER_EXECUTOR_QUEUE", 1024));
+    }
+
+    public Server buildServer(int port, BindableService... services) {
+        NettyServerBuilder builder = NettyServerBuilder.forPort(port)
+                .bossEventLoopGroup(bossGroup)
+                .workerEventLoopGroup(workerGroup)
+                .channelType(serverChannelType());
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        for (BindableService service : services) {
+            builder.addService(bounded == null ? service.bindService()
+                    : ServerInterceptors.intercept(service, new LoadShedder()));
+        }
+        return builder.build();
+    }
+
+    // Kuyrukta maxBacklog'dan fazla iş varken başlayan RPC handler'a gitmeden
+    // RESOURCE_EXHAUSTED ile kapanır: çağıran hemen başka replikaya/yeniden denemeye geçer
+    private final class LoadShedder implements ServerInterceptor {
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+            int backlog = bounded.getQueue().size();
+            if (backlog > maxBacklog) {
+                call.close(Status.RESOURCE_EXHAUSTED.withDescription(
+                        "Server overloaded: " + backlog + " queued tasks"), new Metadata());
+                return new ServerCall.Listener<ReqT>() {
+                };
+            }
+            return next.startCall(call, headers);
+        }
+    }
+
+    // İstemci kanalları da aynı worker event loop'u kullanır
+    public ManagedChannelBuilder<?> channelBuilder(String host, int port) {
+        NettyChannelBuilder builder = NettyChannelBuilder.forAddress(host, port)
+                .eventLoopGroup(workerGroup)
+                .channelType(clientChannelType())
+                .usePlaintext();
+        if (executorMode == ExecutorMode.VIRTUAL) {
+            // Görev başına executor paylaşılabilir; cevap callback'leri park edebilir
+            builder.executor(executor);
+        }
+        return builder;
+    }
+
+    public Transport transport() {
+        return transport;
+    }
+
+    public ExecutorMode executorMode() {
+        return executorMode;
+    }
+
+    public String describe() {
+        return transport + " transport, " + executorMode + " executor";
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        bossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        workerGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    private Class<? extends ServerChannel> serverChannelType() {
+        return transport == Transport.EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    private Class<? extends Channel> clientChannelType() {
+        return transport == Transport.EPOLL ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
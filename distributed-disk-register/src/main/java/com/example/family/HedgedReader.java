@@ -0,0 +1,230 @@
+package com.example.family;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import family.MessageId;
+import family.NodeInfo;
+import family.StorageServiceGrpc;
+import family.StoredMessage;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * GET için hedged (yedekli) okuma.
+ *
+ * İstek önce ilk replikaya gider. Son okumaların gecikme yüzdeliğine
+ * (HEDGE_PERCENTILE) göre hesaplanan süre içinde cevap gelmezse aynı istek
+ * sıradaki replikaya da gönderilir; boş olmayan ilk StoredMessage kazanır.
+ * Hata veya boş cevap gelirse beklemeden sıradaki replikaya geçilir.
+ * Her Retrieve RETRIEVE_DEADLINE_MS ile sınırlıdır; devresi açık üyeler
+ * listenin sonuna alınır.
+ *
+ * tolerance.conf ayarları:
+ *   HEDGE_ENABLED=true
+ *   HEDGE_PERCENTILE=95
+ *   HEDGE_MIN_DELAY_MS=2
+ *   HEDGE_MAX_DELAY_MS=500
+ */
+public class HedgedReader {
+
+    private static final int SAMPLE_WINDOW = 512;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final ChannelPool channelPool;
+    private final CircuitBreakers circuitBreakers;
+    private final boolean enabled;
+    private final int percentile;
+    private final long minDelayMicros;
+    private final long maxDelayMicros;
+
+    // Son okumaların gecikmeleri (mikrosaniye) - halka tampon
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private long sampleCount = 0;
+    private volatile long hedgeDelayMicros;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong hedgedReads = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    public HedgedReader(ChannelPool channelPool, CircuitBreakers circuitBreakers) {
+        this.channelPool = channelPool;
+        this.circuitBreakers = circuitBreakers;
+        this.enabled = ToleranceConfig.getBoolean("HEDGE_ENABLED", true);
+        this.percentile = Math.max(1, Math.min(99, ToleranceConfig.getInt("HEDGE_PERCENTILE", 95)));
+        this.minDelayMicros = ToleranceConfig.getLong("HEDGE_MIN_DELAY_MS", 2) * 1000L;
+        this.maxDelayMicros = Math.max(minDelayMicros, ToleranceConfig.getLong("HEDGE_MAX_DELAY_MS", 500) * 1000L);
+        this.hedgeDelayMicros = maxDelayMicros;
+    }
+
+    /**
+     * Replikalardan mesajı okur. Hiçbirinde yoksa (veya hepsi hata verirse) null döner.
+     */
+    public StoredMessage read(List<NodeInfo> members, int messageId) {
+        if (members.isEmpty()) {
+            return null;
+        }
+        reads.incrementAndGet();
+        ReadAttempt attempt = new ReadAttempt(circuitBreakers.order(members), MessageId.newBuilder().setId(messageId).build());
+        attempt.launchNext(false);
+
+        try {
+            StoredMessage response = null;
+            while (response == null) {
+                if (!enabled || !attempt.hasMore()) {
+                    response = attempt.winner.get();
+                    break;
+                }
+                try {
+                    response = attempt.winner.get(hedgeDelayMicros, TimeUnit.MICROSECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    // İlk replika geç kaldı → sıradakine de gönder
+                    if (attempt.launchNext(true)) {
+                        hedgedReads.incrementAndGet();
+                    }
+                }
+            }
+            if (response != null && response.getChunked()) {
+                // Büyük değer: cevabı veren replikadan parça parça çek
+                response = ChunkedTransfer.retrieve(channelPool.get(attempt.winnerMember), messageId);
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        } catch (RuntimeException e) {
+            Log.warn("Chunked retrieve of %d failed - %s", messageId, e.getMessage());
+            return null;
+        }
+    }
+
+    public long getHedgeDelayMicros() {
+        return hedgeDelayMicros;
+    }
+
+    public String statsReport() {
+        long r = reads.get();
+        long h = hedgedReads.get();
+        long w = hedgeWins.get();
+        return String.format("Okuma: %d | Hedge: %d (%.1f%%) | Hedge kazandı: %d (%.1f%%) | Hedge gecikmesi: %.1f ms (p%d)%n",
+                r, h, r == 0 ? 0.0 : 100.0 * h / r,
+                w, h == 0 ? 0.0 : 100.0 * w / h,
+                hedgeDelayMicros / 1000.0, percentile);
+    }
+
+    private void recordLatency(long micros) {
+        synchronized (samples) {
+            samples[(int) (sampleCount % SAMPLE_WINDOW)] = micros;
+            sampleCount++;
+            if (sampleCount >= MIN_SAMPLES && sampleCount % RECOMPUTE_EVERY == 0) {
+                int n = (int) Math.min(sampleCount, SAMPLE_WINDOW);
+                long[] sorted = Arrays.copyOf(samples, n);
+                Arrays.sort(sorted);
+                long p = sorted[Math.min(n - 1, n * percentile / 100)];
+                hedgeDelayMicros = Math.max(minDelayMicros, Math.min(maxDelayMicros, p));
+            }
+        }
+    }
+
+    // Tek bir GET'in replikalara dağılmış denemeleri
+    private final class ReadAttempt {
+        private final List<NodeInfo> members;
+        private final MessageId request;
+        private final CompletableFuture<StoredMessage> winner = new CompletableFuture<>();
+        private NodeInfo winnerMember;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        ReadAttempt(List<NodeInfo> members, MessageId request) {
+            this.members = members;
+            this.request = request;
+        }
+
+        boolean hasMore() {
+            return nextIndex.get() < members.size();
+        }
+
+        boolean launchNext(boolean hedge) {
+            // Önce pending: index'i alıp henüz saymadığımız anda failover
+            // pending==0 && !hasMore() görüp null ile erken bitirmesin
+            pending.incrementAndGet();
+            int index = nextIndex.getAndIncrement();
+            if (index >= members.size()) {
+                // Sıfıra inen biz olduysak başka deneme kalmadı: sonucu biz bitiririz
+                if (pending.decrementAndGet() == 0) {
+                    winner.complete(null);
+                }
+                return false;
+            }
+            NodeInfo member = members.get(index);
+            long start = System.nanoTime();
+
+            StreamObserver<StoredMessage> observer = new StreamObserver<>() {
+                @Override
+                public void onNext(StoredMessage response) {
+                    recordLatency((System.nanoTime() - start) / 1000L);
+                    circuitBreakers.onSuccess(member);
+                    if (PayloadCodec.hasValue(response) || response.getChunked()) {
+                        if (complete(member, response)) {
+                            if (hedge) {
+                                hedgeWins.incrementAndGet();
+                            }
+                            Log.debug("Retrieved message %d from %s:%d%s",
+                                    request.getId(), member.getHost(), member.getPort(), hedge ? " (hedged)" : "");
+                        }
+                    } else {
+                        failover();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    Log.warn("Failed to retrieve from %s:%d - %s",
+                            member.getHost(), member.getPort(), t.getMessage());
+                    circuitBreakers.onFailure(member, t);
+                    failover();
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            };
+
+            try {
+                RpcDeadlines.withDeadline(StorageServiceGrpc.newStub(channelPool.get(member)), RpcDeadlines.retrieveMs())
+                        .retrieve(request, observer);
+            } catch (Exception e) {
+                observer.onError(e);
+            }
+            return true;
+        }
+
+        // İlk gelen boş olmayan cevap kazanır; kazananın kim olduğunu da saklıyoruz
+        private synchronized boolean complete(NodeInfo member, StoredMessage response) {
+            if (winner.isDone()) {
+                return false;
+            }
+            winnerMember = member;
+            return winner.complete(response);
+        }
+
+        // Bu deneme sonuçsuz kaldı: sıradaki replikaya geç, kimse kalmadıysa null ile bitir
+        private void failover() {
+            if (!winner.isDone()) {
+                launchNext(false);
+            }
+            if (pending.decrementAndGet() == 0 && !hasMore()) {
+                winner.complete(null);
+            }
+        }
+    }
+}
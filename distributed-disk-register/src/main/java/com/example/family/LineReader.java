@@ -0,0 +1,91 @@
+package com.example.family;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Soketten satırları byte[] olarak okur ('\n' ile biten, sondaki '\r' atılır).
+ * BufferedReader'ın aksine karakter çözme (decode) yapmaz; değerler
+ * geçerli UTF-8 olmak zorunda değildir.
+ */
+public class LineReader {
+
+    // Tek satır (SET + 1 MB değer) için üst sınır; aşılırsa bağlantı kapatılır
+    static final int MAX_LINE_BYTES = 64 * 1024 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int pos = 0;
+    private int limit = 0;
+
+    public LineReader(InputStream in) {
+        this(in, 8192);
+    }
+
+    public LineReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Bir sonraki satırı döner; akış bittiyse null.
+     */
+    public byte[] readLine() throws IOException {
+        byte[] line = null;
+        int lineLength = 0;
+
+        while (true) {
+            if (pos == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    // Son satır '\n' olmadan bitmiş olabilir
+                    return line == null ? null : trimCr(line, lineLength);
+                }
+            }
+
+            int start = pos;
+            while (pos < limit && buffer[pos] != '\n') {
+                pos++;
+            }
+            int chunk = pos - start;
+
+            if (line == null && pos < limit) {
+                // Satırın tamamı tamponda: tam boyda tek dizi ayır (sonradan kırpma kopyası yok)
+                pos++; // '\n' atla
+                int length = chunk > 0 && buffer[start + chunk - 1] == '\r' ? chunk - 1 : chunk;
+                return Arrays.copyOfRange(buffer, start, start + length);
+            }
+
+            if (line == null) {
+                line = new byte[Math.max(chunk, 64)];
+            } else if (lineLength + chunk > line.length) {
+                if (lineLength + chunk > MAX_LINE_BYTES) {
+                    throw new IOException("Line exceeds " + MAX_LINE_BYTES + " bytes");
+                }
+                line = Arrays.copyOf(line, Math.max(lineLength + chunk, line.length * 2));
+            }
+            System.arraycopy(buffer, start, line, lineLength, chunk);
+            lineLength += chunk;
+
+            if (pos < limit) {
+                pos++; // '\n' atla
+                return trimCr(line, lineLength);
+            }
+        }
+    }
+
+    // Tamponda henüz okunmamış bayt var mı (istemci arkadan komut göndermiş mi)
+    public boolean hasBufferedInput() {
+        return pos < limit;
+    }
+
+    private static byte[] trimCr(byte[] line, int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return length == line.length ? line : Arrays.copyOf(line, length);
+    }
+}
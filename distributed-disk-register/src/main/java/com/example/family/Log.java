@@ -0,0 +1,276 @@
+package com.example.family;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * İstek yolundaki (hot path) loglar için küçük, seviyeli ve asenkron log.
+ *
+ * Çağıran thread sadece seviyeyi ve hız sınırını kontrol edip kaydı sınırlı
+ * bir kuyruğa koyar; biçimlendirme (String.format) ve konsola yazma arka
+ * plandaki "log-writer" thread'inde yapılır. Kuyruk doluysa kayıt atılır
+ * ve sayılır, istek hiçbir zaman log yüzünden beklemez.
+ *
+ * Aynı format string'i saniyede LOG_RATE_PER_SEC'ten fazla gelirse fazlası
+ * bastırılır; bir sonraki saniyede kaç tanesinin bastırıldığı yazılır.
+ * Uzun String, ByteString ve byte[] argümanlar (değerler) kuyruğa konmadan,
+ * çağıran thread'de LOG_MAX_VALUE_CHARS'a kırpılır: kuyruktaki kayıt büyük
+ * değeri tutmaz (kuyruk doluyken 8192 x 1 MB olmasın) ve tam değer asla
+ * loga yazılmaz. Değişebilen CharSequence'lar (StringBuilder) o anki halleriyle
+ * kopyalanır.
+ *
+ * tolerance.conf ayarları:
+ *   LOG_LEVEL=INFO                 (DEBUG | INFO | WARN | ERROR)
+ *   LOG_QUEUE_CAPACITY=8192
+ *   LOG_RATE_PER_SEC=200           (format başına; 0 = sınırsız)
+ *   LOG_MAX_VALUE_CHARS=64
+ */
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+    private static final int DRAIN_BATCH = 256;
+
+    private static volatile Level level = parseLevel(ToleranceConfig.getString("LOG_LEVEL", "INFO"));
+    private static final int ratePerSecond = ToleranceConfig.getInt("LOG_RATE_PER_SEC", 200);
+    private static final int maxValueChars = Math.max(8, ToleranceConfig.getInt("LOG_MAX_VALUE_CHARS", 64));
+    private static final BlockingQueue<Entry> queue =
+            new ArrayBlockingQueue<>(Math.max(16, ToleranceConfig.getInt("LOG_QUEUE_CAPACITY", 8192)));
+
+    // Format string başına hız sınırı
+    private static final Map<String, RateLimit> limits = new ConcurrentHashMap<>();
+
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong suppressed = new AtomicLong();
+
+    static {
+        Thread writer = new Thread(Log::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private Log() {
+    }
+
+    private static final class Entry {
+        final Level level;
+        final long time;
+        final String format;
+        final Object[] args;
+
+        Entry(Level level, long time, String format, Object[] args) {
+            this.level = level;
+            this.time = time;
+            this.format = format;
+            this.args = args;
+        }
+    }
+
+    private static final class RateLimit {
+        long windowStart;
+        int count;
+        int suppressedInWindow;
+    }
+
+    // Çalışırken seviye değiştirmek için (benchmark, hata ayıklama)
+    public static void setLevel(Level l) {
+        level = l;
+    }
+
+    public static boolean isEnabled(Level l) {
+        return l.ordinal() >= level.ordinal();
+    }
+
+    public static void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args);
+    }
+
+    public static void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public static void warn(String format, Object... args) {
+        log(Level.WARN, format, args);
+    }
+
+    public static void error(String format, Object... args) {
+        log(Level.ERROR, format, args);
+    }
+
+    private static void log(Level l, String format, Object[] args) {
+        if (!isEnabled(l)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (ratePerSecond > 0 && !allow(format, now)) {
+            return;
+        }
+        enqueue(new Entry(l, now, format, snapshot(args)));
+    }
+
+    // Kayıt kuyrukta beklerken değeri tutmasın/değişmesin: gerekenleri şimdi kırp.
+    // Dizi sadece bir argüman değişecekse kopyalanır.
+    private static Object[] snapshot(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        Object[] copy = args;
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg instanceof ByteString || arg instanceof byte[]
+                    || (arg instanceof CharSequence && !(arg instanceof String))
+                    || (arg instanceof String text && text.length() > maxValueChars)) {
+                if (copy == args) {
+                    copy = args.clone();
+                }
+                copy[i] = abbreviate(arg);
+            }
+        }
+        return copy;
+    }
+
+    private static void enqueue(Entry entry) {
+        if (!queue.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private static boolean allow(String format, long now) {
+        RateLimit limit = limits.computeIfAbsent(format, k -> new RateLimit());
+        int previouslySuppressed = 0;
+        boolean allowed;
+        synchronized (limit) {
+            if (now - limit.windowStart >= 1000) {
+                previouslySuppressed = limit.suppressedInWindow;
+                limit.windowStart = now;
+                limit.count = 0;
+                limit.suppressedInWindow = 0;
+            }
+            allowed = ++limit.count <= ratePerSecond;
+            if (!allowed) {
+                limit.suppressedInWindow++;
+            }
+        }
+        if (previouslySuppressed > 0) {
+            enqueue(new Entry(Level.WARN, now, "(son saniyede %d benzer mesaj bastırıldı: %s)",
+                    new Object[] { previouslySuppressed, format.trim() }));
+        }
+        if (!allowed) {
+            suppressed.incrementAndGet();
+        }
+        return allowed;
+    }
+
+    private static void writeLoop() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH);
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                boolean out = false;
+                boolean err = false;
+                for (Entry entry : batch) {
+                    line.setLength(0);
+                    line.append(TIME.format(Instant.ofEpochMilli(entry.time)))
+                            .append(' ').append(entry.level).append(' ');
+                    format(line, entry);
+                    PrintStream stream = entry.level.ordinal() >= Level.WARN.ordinal() ? System.err : System.out;
+                    stream.println(line);
+                    out |= stream == System.out;
+                    err |= stream == System.err;
+                }
+                written.addAndGet(batch.size());
+                batch.clear();
+                if (out) {
+                    System.out.flush();
+                }
+                if (err) {
+                    System.err.flush();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Tek bozuk kayıt yazıcıyı durdurmasın
+                batch.clear();
+            }
+        }
+    }
+
+    private static void format(StringBuilder line, Entry entry) {
+        Object[] args = entry.args;
+        if (args == null || args.length == 0) {
+            line.append(entry.format);
+            return;
+        }
+        try {
+            // Argümanlar enqueue'da kırpıldı (snapshot)
+            line.append(String.format(entry.format, args));
+        } catch (IllegalFormatException e) {
+            line.append(entry.format);
+        }
+        // printf'teki gibi sondaki %n'i satır sonu olarak bırakma (println ekliyor)
+        int end = line.length();
+        while (end > 0 && (line.charAt(end - 1) == '\n' || line.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        line.setLength(end);
+    }
+
+    // Değerleri kırp: tam değer loga yazılmaz. Sonuç hep değişmez bir String.
+    private static Object abbreviate(Object arg) {
+        if (arg instanceof ByteString bytes) {
+            int shown = Math.min(bytes.size(), maxValueChars);
+            String head = bytes.substring(0, shown).toStringUtf8();
+            return shown == bytes.size() ? head : head + "...(" + bytes.size() + " B)";
+        }
+        if (arg instanceof byte[] bytes) {
+            int shown = Math.min(bytes.length, maxValueChars);
+            String head = new String(bytes, 0, shown, StandardCharsets.UTF_8);
+            return shown == bytes.length ? head : head + "...(" + bytes.length + " B)";
+        }
+        if (arg instanceof CharSequence text) {
+            return text.length() > maxValueChars
+                    ? text.subSequence(0, maxValueChars) + "...(" + text.length() + " chars)"
+                    : text.toString();
+        }
+        return arg;
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid LOG_LEVEL value in config, using default: INFO");
+            return Level.INFO;
+        }
+    }
+
+    public static String statsReport() {
+        return String.format("Seviye: %s | Yazılan: %d | Bastırılan (hız sınırı): %d | Atılan (kuyruk dolu): %d | Kuyrukta: %d%n",
+                level, written.get(), suppressed.get(), dropped.get(), queue.size());
+    }
+}
@@ -0,0 +1,815 @@
+package com.example.family;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import family.Codec;
+import family.StoredMessage;
+
+/**
+ * Sadece sona ekleme yapılan (append-only) segment dosyalarından oluşan
+ * log-structured depo. Anahtar başına dosya yerine:
+ *
+ *   - Her SET aktif segmentin sonuna bir kayıt olarak eklenir (sıralı yazma).
+ *   - Heap dışındaki indeks ({@link OffHeapIndex}) anahtarı son kaydın yerine
+ *     (segment, offset, boy) bağlar; anahtar başına ~16 B direct bellek, heap'te
+ *     anahtar başına nesne yok. Direct bellek -XX:MaxDirectMemorySize'a
+ *     (varsayılan: heap üst sınırı) sayılır; büyütme sırasında eski ve yeni
+ *     tablo birlikte durur.
+ *   - GET kaydı segmentin map'lenmiş bölgesinden okur; değer kopyalanmadan
+ *     ByteString'e sarılır (map'lenmemiş kısımda tek pread).
+ *   - Aktif segment SEGMENT_BYTES'ı geçince yenisine geçilir (roll).
+ *
+ * Kayıt biçimi (big-endian):
+ *   [magic 0x7E][codec: 1 B][id: int32][length: int32][crc32: int32][değer: length B]
+ * CRC başlık alanları (crc hariç) ve değer üzerinden hesaplanır.
+ *
+ * Açılışta segmentler sırayla taranır ve indeks yeniden kurulur: CRC'si
+ * tutmayan kayıt (yarım kalmış chunked yazma) atlanır, bozuk bir başlıkta
+ * o segmentin taraması biter ve son segment o noktadan kesilir. Aynı
+ * anahtarın eski kayıtları diskte kalır (compaction yok); canlı/toplam bayt
+ * statsReport'ta görünür.
+ *
+ * Dizin tek bir process'e aittir (LOCK dosyası); aynı makinedeki node'lar
+ * ayrı dizin kullanır.
+ *
+ * Map'lenmiş okuma: segment ilk okunduğunda READ_ONLY map'lenir ve
+ * Segment'te saklanır. Aktif segment büyüdükçe map'lenmemiş kuyruk
+ * REMAP_STEP'i geçince yeniden map'lenir; o zamana kadar kuyruktaki kayıtlar
+ * pread ile okunur. Map'ler STORAGE_MMAP_BYTES bütçesi dolana kadar kurulur;
+ * bütçeye sığmayan segmentler pread ile okunur. Eski map (büyüyen aktif
+ * segmentin önceki map'i) açıkça unmap edilmez (invokeCleaner yok): cevapta
+ * hâlâ o bölgeyi gösteren bir ByteString olabilir; GC onu tutan son referans
+ * gidince unmap eder. Aynı sebeple bütçe dolunca map bırakılıp başka segment
+ * map'lenmez: GC gelene kadar bırakılan map'ler birikir ve process'in map
+ * sınırı (vm.max_map_count) dolar. Segmentler açıkken kısaltılmaz
+ * (truncate sadece recover'da, map'lemeden önce), bu yüzden map'li okuma
+ * SIGBUS'a düşmez.
+ *
+ * Dayanıklılık ({@link StorageEngine.Durability}): sync modunda her put kendi
+ * segmentini force() eder; group modunda {@link GroupCommit} aktif segmenti
+ * tek force() ile indirir ve o ana kadar yazan herkesi bırakır. İki modda da
+ * roll'da eski segment force() edilir ve yeni segment dosyası için dizin
+ * senkronlanır; chunked commit kendi segmentini force() eder. putAll bütün
+ * kayıtları ekleyip bir kez bekler; putAsync beklemez, iki modda da group
+ * commit'e kaydolur. Kayıt indekse (okunur hale) ancak diske indikten sonra
+ * girer.
+ *
+ * tolerance.conf ayarları (STORAGE_ENGINE=log):
+ *   STORAGE_SEGMENT_BYTES=67108864   (en fazla 2 GB; indeks offset'i 31 bit, segment id 16 bit)
+ *   STORAGE_MMAP_BYTES=1073741824   (0 = map kullanma, her GET pread)
+ *   STORAGE_DURABILITY, STORAGE_GROUP_COMMIT_MS, STORAGE_GROUP_COMMIT_BYTES ({@link StorageEngine})
+ */
+public class LogStructuredStore implements StorageEngine {
+
+    static final byte RECORD_MAGIC = 0x7E;
+    static final int HEADER_SIZE = 1 + 1 + 4 + 4 + 4;
+    private static final int CRC_OFFSET = 10;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Aktif segmentte bu kadar map'lenmemiş veri birikince yeniden map'le
+    private static final long REMAP_STEP = 1024 * 1024;
+
+    private final File dir;
+    private final long segmentBytes;
+    private final long mmapBudget;
+    private final Durability durability;
+    // group modunda bütün yazılar, sync modunda sadece putAsync; none'da yok
+    private final GroupCommit groupCommit;
+    private final FileChannel lockChannel;
+    private final FileLock dirLock;
+
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final OffHeapIndex index = new OffHeapIndex();
+    // Sona ekleme ve segment değişimi bu kilit altında
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Segment active;
+    // Açılıştan beri eklenen bayt; group commit'te yazının sırası
+    private long sequence = 0;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    private final AtomicLong mappedBytes = new AtomicLong();
+    private final AtomicLong mappedReads = new AtomicLong();
+    private final AtomicLong preadReads = new AtomicLong();
+
+    /** Anahtarın son kaydının yeri; indekste paketlenmiş long olarak durur. */
+    static final class Location {
+        final int segment;
+        final long offset;
+        final int length;
+
+        Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        long recordSize() {
+            return HEADER_SIZE + (long) length;
+        }
+
+        long pack() {
+            return OffHeapIndex.pack(segment, offset, length);
+        }
+    }
+
+    // Log sırasında daha sonra mı yazıldı: paketin üst bitleri (segment, offset)
+    private static boolean isAfter(long packed, long other) {
+        return packed >>> OffHeapIndex.LENGTH_BITS > other >>> OffHeapIndex.LENGTH_BITS;
+    }
+
+    // İndeksteki yer; yoksa null
+    private Location locate(int id) throws IOException {
+        long packed = index.get(id);
+        return packed == OffHeapIndex.MISSING ? null : location(packed);
+    }
+
+    // Boy slota sığmadıysa (128 KB ve üstü) kayıt başlığından okunur: başlık
+    // map'lenmiş bölgedeyse oradan (sistem çağrısı yok), değilse pread ile
+    private Location location(long packed) throws IOException {
+        int segment = OffHeapIndex.segment(packed);
+        long offset = OffHeapIndex.offset(packed);
+        int length = OffHeapIndex.length(packed);
+        if (length == OffHeapIndex.LENGTH_ON_DISK) {
+            Segment s = segments.get(segment);
+            MappedByteBuffer mapped = s.mapped;
+            if (mapped != null && offset + HEADER_SIZE <= mapped.capacity()) {
+                length = mapped.getInt((int) offset + 6);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                readFully(s.channel, header, offset);
+                length = header.getInt(6);
+            }
+        }
+        return new Location(segment, offset, length);
+    }
+
+    private static final class Segment {
+        final int id;
+        final FileChannel channel;
+        // Bir sonraki kaydın başlayacağı yer (sadece aktif segmentte artar)
+        long end;
+        // Artık yazılmıyor (roll edildi): map'i bir kez tam boyda kurulur
+        volatile boolean sealed;
+        // [0, capacity) bölgesi; null = map'lenmemiş veya bırakılmış
+        volatile MappedByteBuffer mapped;
+        final ReentrantLock mapLock = new ReentrantLock();
+
+        Segment(int id, FileChannel channel, long end) {
+            this.id = id;
+            this.channel = channel;
+            this.end = end;
+        }
+    }
+
+    public LogStructuredStore(File dir, long segmentBytes) throws IOException {
+        this(dir, segmentBytes, 1024L * 1024 * 1024);
+    }
+
+    public LogStructuredStore(File dir, long segmentBytes, long mmapBudget) throws IOException {
+        this(dir, segmentBytes, mmapBudget, Durability.NONE, 0, 1024 * 1024);
+    }
+
+    public LogStructuredStore(File dir, long segmentBytes, long mmapBudget, Durability durability,
+            long groupCommitMillis, long groupCommitBytes) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = Math.min(OffHeapIndex.MAX_OFFSET + 1, Math.max(1024 * 1024, segmentBytes));
+        this.mmapBudget = Math.max(0, mmapBudget);
+        this.durability = durability;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create storage directory " + dir);
+        }
+        lockChannel = FileChannel.open(new File(dir, "LOCK").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // aynı JVM'de zaten açık
+        }
+        dirLock = lock;
+        if (dirLock == null) {
+            lockChannel.close();
+            throw new IOException("Storage directory " + dir + " is used by another process");
+        }
+        recover();
+        // sync modunda da putAsync için; orada gruplar beklemeden, önceki force()
+        // sürerken gelenlerden oluşur
+        groupCommit = durability == Durability.NONE ? null
+                : new GroupCommit("storage-sync-" + dir.getName(), this::syncActive,
+                        durability == Durability.GROUP ? groupCommitMillis : 0, groupCommitBytes);
+    }
+
+    public static LogStructuredStore open(File dir, Durability durability) throws IOException {
+        return new LogStructuredStore(dir,
+                ToleranceConfig.getLong("STORAGE_SEGMENT_BYTES", 64L * 1024 * 1024),
+                ToleranceConfig.getLong("STORAGE_MMAP_BYTES", 1024L * 1024 * 1024),
+                durability,
+                ToleranceConfig.getLong("STORAGE_GROUP_COMMIT_MS", 0),
+                ToleranceConfig.getLong("STORAGE_GROUP_COMMIT_BYTES", 1024 * 1024));
+    }
+
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    /**
+     * Değeri tek kayıt olarak sona ekler ve indeksi günceller. Başlık ve
+     * değer tek gathering write ile yazılır; değer kopyalanmaz.
+     */
+    @Override
+    public void put(int id, Codec codec, ByteString value) throws IOException {
+        Appended appended = append(id, codec, value);
+        // Diske inmeden okunur olmasın; publish log sırasını kendisi korur
+        awaitDurable(appended.segment, appended.written, appended.location.recordSize());
+        publish(id, appended.location);
+    }
+
+    /**
+     * Bütün kayıtları ekler, sonra dayanıklılığı bir kez bekler: sync'te son
+     * kaydın segmenti tek force() (önceki segmentler roll'da indirildi), group'ta
+     * son kaydın grubu. Ekleme yarıda hata verirse eklenenler de yayımlanmaz.
+     */
+    @Override
+    public void putAll(List<StoredMessage> messages) throws IOException {
+        List<Appended> batch = new ArrayList<>(messages.size());
+        long bytes = 0;
+        for (StoredMessage message : messages) {
+            Appended appended = append(message.getId(), message.getCodec(), message.getPayload());
+            batch.add(appended);
+            bytes += appended.location.recordSize();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        Appended last = batch.get(batch.size() - 1);
+        awaitDurable(last.segment, last.written, bytes);
+        for (Appended appended : batch) {
+            publish(appended.id, appended.location);
+        }
+    }
+
+    /**
+     * Kaydı ekler, diske inmesini beklemeden döner. sync ve group modunda
+     * {@link GroupCommit} o sırayı diske indirince kayıt yayımlanır ve future
+     * tamamlanır; peş peşe gelen yazılar (ör. replikasyon frame'leri) böylece
+     * tek force() paylaşır.
+     */
+    @Override
+    public CompletableFuture<Void> putAsync(int id, Codec codec, ByteString value) {
+        Appended appended;
+        try {
+            appended = append(id, codec, value);
+            if (groupCommit == null) {
+                publish(id, appended.location);
+                return CompletableFuture.completedFuture(null);
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        groupCommit.durable(appended.written, appended.location.recordSize()).whenComplete((ignored, error) -> {
+            if (error != null) {
+                published.completeExceptionally(error);
+                return;
+            }
+            try {
+                publish(id, appended.location);
+                published.complete(null);
+            } catch (IOException e) {
+                published.completeExceptionally(e);
+            }
+        });
+        return published;
+    }
+
+    // Sona eklenmiş, henüz yayımlanmamış kayıt
+    private static final class Appended {
+        final int id;
+        final Segment segment;
+        final Location location;
+        // Kaydın bittiği sıra (group commit için)
+        final long written;
+
+        Appended(int id, Segment segment, Location location, long written) {
+            this.id = id;
+            this.segment = segment;
+            this.location = location;
+            this.written = written;
+        }
+    }
+
+    // Başlık ve değeri tek gathering write ile sona ekler; indekse dokunmaz
+    private Appended append(int id, Codec codec, ByteString value) throws IOException {
+        List<ByteBuffer> parts = value.asReadOnlyByteBufferList();
+        ByteBuffer[] buffers = new ByteBuffer[1 + parts.size()];
+        buffers[0] = header(id, codec, value.size(), crc(id, codec, parts));
+        for (int i = 0; i < parts.size(); i++) {
+            buffers[1 + i] = parts.get(i).duplicate();
+        }
+
+        Location location;
+        Segment segment;
+        long written;
+        appendLock.lock();
+        try {
+            segment = segmentFor(HEADER_SIZE + (long) value.size());
+            long offset = segment.end;
+            segment.channel.position(offset);
+            long remaining = HEADER_SIZE + (long) value.size();
+            while (remaining > 0) {
+                remaining -= segment.channel.write(buffers);
+            }
+            location = new Location(segment.id, offset, value.size());
+            segment.end = offset + location.recordSize();
+            totalBytes.addAndGet(location.recordSize());
+            written = sequence += location.recordSize();
+        } finally {
+            appendLock.unlock();
+        }
+        return new Appended(id, segment, location, written);
+    }
+
+    // Ayara göre kaydın diske inmesini bekler (kilit dışında: yazanlar birbirini beklemez)
+    private void awaitDurable(Segment segment, long written, long bytes) throws IOException {
+        // sync modunda group commit sadece putAsync için var; put kendi force()'unu yapar
+        if (durability == Durability.SYNC) {
+            segment.channel.force(false);
+        } else if (durability == Durability.GROUP) {
+            groupCommit.awaitDurable(written, bytes);
+        }
+    }
+
+    // Group commit'in force()'u: o ana kadar eklenen her şey aktif segmentte ya da
+    // roll'da force() edilmiş eski segmentlerde
+    private long syncActive() throws IOException {
+        Segment segment;
+        long written;
+        appendLock.lock();
+        try {
+            segment = active;
+            written = sequence;
+        } finally {
+            appendLock.unlock();
+        }
+        if (segment != null) {
+            segment.channel.force(false);
+        }
+        return written;
+    }
+
+    /**
+     * Parça parça gelen büyük değer için kayıt: toplam boy kadar yer baştan
+     * ayrılır, parçalar geldikçe o bölgeye yazılır ve commit'te CRC yazılıp
+     * indeks güncellenir. Commit edilmeyen kayıt CRC'si tutmadığı için
+     * açılışta atlanır.
+     */
+    @Override
+    public Appender beginChunked(int id, Codec codec, long totalSize) throws IOException {
+        if (totalSize < 0 || totalSize > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IOException("Invalid value size " + totalSize);
+        }
+        int length = (int) totalSize;
+        Segment segment;
+        long offset;
+        appendLock.lock();
+        try {
+            segment = segmentFor(HEADER_SIZE + (long) length);
+            offset = segment.end;
+            // Başlık kilit altında: arkasına eklenen kayıtlardan önce dosyada olsun.
+            // Yoksa çökmede recover bu offset'te magic bulamaz ve sonrasını (ack'lenmiş
+            // kayıtları) keser. CRC henüz 0: commit edilmezse kayıt geçersiz kalır.
+            writeFully(segment.channel, header(id, codec, length, 0), offset);
+            segment.end = offset + HEADER_SIZE + length;
+            totalBytes.addAndGet(HEADER_SIZE + (long) length);
+            sequence += HEADER_SIZE + (long) length;
+        } finally {
+            appendLock.unlock();
+        }
+        return new Appender(id, codec, segment, offset, length);
+    }
+
+    /** {@link #beginChunked} ile açılmış, parça parça yazılan kayıt. */
+    public final class Appender implements ChunkedWrite {
+        private final int id;
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+        private final CRC32 crc = new CRC32();
+        private long written = 0;
+
+        private Appender(int id, Codec codec, Segment segment, long offset, int length) {
+            this.id = id;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            crc.update(headerFields(id, codec, length));
+        }
+
+        @Override
+        public void write(ByteString data) throws IOException {
+            if (written + data.size() > length) {
+                throw new IOException("Chunk exceeds declared size " + length + " for " + id);
+            }
+            for (ByteBuffer part : data.asReadOnlyByteBufferList()) {
+                int n = part.remaining();
+                crc.update(part.duplicate());
+                writeFully(segment.channel, part, offset + HEADER_SIZE + written);
+                written += n;
+            }
+        }
+
+        @Override
+        public void commit() throws IOException {
+            if (written != length) {
+                throw new IOException("Value for " + id + " incomplete: " + written + "/" + length + " B");
+            }
+            ByteBuffer value = ByteBuffer.allocate(4).putInt(0, (int) crc.getValue());
+            writeFully(segment.channel, value, offset + CRC_OFFSET);
+            // Ayrılan bölge eski bir segmentte kalmış olabilir: grup yerine kendi segmentini indir
+            if (durability != Durability.NONE) {
+                segment.channel.force(false);
+            }
+            publish(id, new Location(segment.id, offset, length));
+        }
+
+        @Override
+        public void abort() {
+            // Ayrılan yer boş kalır; CRC tutmadığı için açılışta da atlanır
+        }
+    }
+
+    @Override
+    public StoredMessage get(int id) throws IOException {
+        Location location = locate(id);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer record = readRecord(segments.get(location.segment), location);
+        if (record.get(0) != RECORD_MAGIC || record.getInt(2) != id) {
+            throw new IOException("Corrupt record for " + id + " in segment " + location.segment);
+        }
+        // Map'lenmiş bölge ya da sadece bu okumaya ait dizi: kopyalamadan ByteString'e sar
+        record.position(HEADER_SIZE);
+        return StoredMessage.newBuilder()
+                .setId(id)
+                .setCodec(PayloadCodec.codecOf(record.get(1)))
+                .setPayload(UnsafeByteOperations.unsafeWrap(record.slice()))
+                .build();
+    }
+
+    // Kaydın tamamı (başlık + değer), 0'dan başlayan buffer olarak
+    private ByteBuffer readRecord(Segment segment, Location location) throws IOException {
+        ByteBuffer record = mappedRecord(segment, location);
+        if (record != null) {
+            mappedReads.incrementAndGet();
+            return record;
+        }
+        preadReads.incrementAndGet();
+        record = ByteBuffer.allocate((int) location.recordSize());
+        readFully(segment.channel, record, location.offset);
+        record.flip();
+        return record;
+    }
+
+    // Kayıt map'lenmiş bölgedeyse onun dilimi; değilse null (pread ile okunur)
+    private ByteBuffer mappedRecord(Segment segment, Location location) throws IOException {
+        if (mmapBudget == 0) {
+            return null;
+        }
+        long end = location.offset + location.recordSize();
+        MappedByteBuffer mapped = segment.mapped;
+        if (mapped == null || end > mapped.capacity()) {
+            mapped = remap(segment, end);
+            if (mapped == null) {
+                return null;
+            }
+        }
+        // duplicate: position/limit bu okumaya ait, paylaşılan map'e dokunulmaz
+        ByteBuffer record = mapped.duplicate();
+        record.limit((int) end);
+        record.position((int) location.offset);
+        return record.slice();
+    }
+
+    // Segmenti dosyanın şu anki boyuyla yeniden map'ler; gerek yoksa, bütçe
+    // yetmiyorsa veya başka bir thread map'liyorsa null (bu okuma pread ile yapılır)
+    private MappedByteBuffer remap(Segment segment, long needed) throws IOException {
+        if (!segment.mapLock.tryLock()) {
+            return null;
+        }
+        try {
+            MappedByteBuffer mapped = segment.mapped;
+            if (mapped != null && needed <= mapped.capacity()) {
+                return mapped;
+            }
+            long covered = mapped == null ? 0 : mapped.capacity();
+            long size = segment.channel.size();
+            // Aktif segmentte her yeni kayıt için map'leme: kuyruk REMAP_STEP'e ulaşınca
+            if (size < needed || size > Integer.MAX_VALUE
+                    || (!segment.sealed && size - covered < REMAP_STEP)) {
+                return null;
+            }
+            if (mappedBytes.addAndGet(size - covered) > mmapBudget) {
+                mappedBytes.addAndGet(covered - size);
+                return null;
+            }
+            // Eski map bırakılır; GC, onu gösteren ByteString kalmayınca unmap eder
+            mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            segment.mapped = mapped;
+            return mapped;
+        } finally {
+            segment.mapLock.unlock();
+        }
+    }
+
+    @Override
+    public long valueSize(int id) throws IOException {
+        Location location = locate(id);
+        return location == null ? -1 : location.length;
+    }
+
+    @Override
+    public ValueReader openReader(int id) throws IOException {
+        Location location = locate(id);
+        if (location == null) {
+            return null;
+        }
+        Segment segment = segments.get(location.segment);
+        // Map'lenmişse parçalar map'ten kopyasız dilimlenir; değilse pread
+        ByteBuffer mapped = mappedRecord(segment, location);
+        ByteBuffer header = ByteBuffer.allocate(2);
+        if (mapped != null) {
+            header.put(0, mapped.get(0)).put(1, mapped.get(1));
+        } else {
+            readFully(segment.channel, header, location.offset);
+        }
+        Codec codec = PayloadCodec.codecOf(header.get(1));
+        // Yer açılışta sabitlenir: arada gelen yeni SET bu okumayı etkilemez
+        return new ValueReader() {
+            private long position = 0;
+
+            @Override
+            public Codec codec() {
+                return codec;
+            }
+
+            @Override
+            public long size() {
+                return location.length;
+            }
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (position >= location.length) {
+                    return -1;
+                }
+                int n = (int) Math.min(dst.remaining(), location.length - position);
+                if (mapped != null) {
+                    dst.put(region(n));
+                } else {
+                    ByteBuffer slice = dst.slice();
+                    slice.limit(n);
+                    readFully(segment.channel, slice, location.offset + HEADER_SIZE + position);
+                    dst.position(dst.position() + n);
+                }
+                position += n;
+                return n;
+            }
+
+            @Override
+            public ByteString next(int maxBytes) throws IOException {
+                if (mapped == null) {
+                    return ValueReader.super.next(maxBytes);
+                }
+                if (position >= location.length) {
+                    return null;
+                }
+                int n = (int) Math.min(maxBytes, location.length - position);
+                ByteString chunk = UnsafeByteOperations.unsafeWrap(region(n));
+                position += n;
+                return chunk;
+            }
+
+            private ByteBuffer region(int n) {
+                ByteBuffer region = mapped.duplicate();
+                region.position(HEADER_SIZE + (int) position);
+                region.limit(HEADER_SIZE + (int) position + n);
+                return region.slice();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    // Aynı anahtar için log sırasında en son yazılan kazanır (chunked commit geç gelebilir)
+    private void publish(int id, Location location) throws IOException {
+        long packed = location.pack();
+        long previous = index.update(id,
+                current -> current == OffHeapIndex.MISSING || isAfter(packed, current) ? packed : current);
+        if (previous == OffHeapIndex.MISSING) {
+            liveBytes.addAndGet(location.recordSize());
+        } else if (isAfter(packed, previous)) {
+            // Büyük eski değerin boyu diskten okunabilir: indeks kilidi dışında
+            liveBytes.addAndGet(location.recordSize() - location(previous).recordSize());
+        }
+    }
+
+    // appendLock altında çağrılır: kayıt sığmıyorsa yeni segmente geç
+    private Segment segmentFor(long recordSize) throws IOException {
+        if (active == null || (active.end > 0 && active.end + recordSize > segmentBytes)) {
+            int next = active == null ? 1 : active.id + 1;
+            if (next > OffHeapIndex.MAX_SEGMENT) {
+                throw new IOException("Segment id space exhausted in " + dir + " (" + OffHeapIndex.MAX_SEGMENT + ")");
+            }
+            if (active != null) {
+                active.sealed = true;
+                if (durability != Durability.NONE) {
+                    active.channel.force(false);
+                }
+            }
+            active = openSegment(next, 0);
+            if (durability != Durability.NONE) {
+                syncDirectory();
+            }
+        }
+        return active;
+    }
+
+    private Segment openSegment(int id, long end) throws IOException {
+        FileChannel channel = FileChannel.open(segmentFile(id).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, channel, end);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    // Yeni segment dosyasının dizin kaydı da kalıcı olsun
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private File segmentFile(int id) {
+        return new File(dir, String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    // Segmentleri sırayla tarayıp indeksi yeniden kurar
+    private void recover() throws IOException {
+        String[] names = dir.list((d, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        int[] ids = Arrays.stream(names == null ? new String[0] : names)
+                .mapToInt(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .toArray();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        for (int i = 0; i < ids.length; i++) {
+            Segment segment = openSegment(ids[i], 0);
+            long size = segment.channel.size();
+            long offset = 0;
+            while (offset + HEADER_SIZE <= size) {
+                header.clear();
+                readFully(segment.channel, header, offset);
+                int length = header.getInt(6);
+                if (header.get(0) != RECORD_MAGIC || length < 0 || offset + HEADER_SIZE + length > size) {
+                    break;
+                }
+                int id = header.getInt(2);
+                if (checksum(segment.channel, header, offset, length)) {
+                    publish(id, new Location(segment.id, offset, length));
+                }
+                offset += HEADER_SIZE + (long) length;
+            }
+            if (i == ids.length - 1 && offset < size) {
+                // Yarım kalmış son kayıt: sonraki eklemeler temiz bir noktadan başlasın
+                Log.warn("Truncating %s at %d (was %d B)", segmentFile(segment.id).getName(), offset, size);
+                segment.channel.truncate(offset);
+            }
+            segment.end = offset;
+            segment.sealed = i < ids.length - 1;
+            totalBytes.addAndGet(offset);
+            active = segment;
+        }
+    }
+
+    private static boolean checksum(FileChannel channel, ByteBuffer header, long offset, int length)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, CRC_OFFSET);
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(length, 64 * 1024));
+        long position = offset + HEADER_SIZE;
+        long remaining = length;
+        while (remaining > 0) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), remaining));
+            readFully(channel, buffer, position);
+            buffer.flip();
+            crc.update(buffer);
+            position += buffer.limit();
+            remaining -= buffer.limit();
+        }
+        return (int) crc.getValue() == header.getInt(CRC_OFFSET);
+    }
+
+    private static byte[] headerFields(int id, Codec codec, int length) {
+        return ByteBuffer.allocate(CRC_OFFSET)
+                .put(RECORD_MAGIC).put((byte) codec.getNumber()).putInt(id).putInt(length)
+                .array();
+    }
+
+    private static int crc(int id, Codec codec, List<ByteBuffer> parts) {
+        CRC32 crc = new CRC32();
+        int length = 0;
+        for (ByteBuffer part : parts) {
+            length += part.remaining();
+        }
+        crc.update(headerFields(id, codec, length));
+        for (ByteBuffer part : parts) {
+            crc.update(part.duplicate());
+        }
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer header(int id, Codec codec, int length, int crc) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(headerFields(id, codec, length)).putInt(crc);
+        header.flip();
+        return header;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            position += channel.write(src, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of segment at " + position);
+            }
+            position += n;
+        }
+    }
+
+    @Override
+    public String statsReport() {
+        return String.format("Segment: %d | Anahtar: %d | Toplam: %d B | Canlı: %d B%n"
+                + "Map'li: %d B (bütçe %d B) | Okuma map/pread: %d/%d%n",
+                segments.size(), index.size(), totalBytes.get(), liveBytes.get(),
+                mappedBytes.get(), mmapBudget, mappedReads.get(), preadReads.get())
+                + index.statsReport()
+                + "Dayanıklılık: " + durability + (groupCommit == null ? "\n" : " | " + groupCommit.statsReport());
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Syncer appendLock aldığı için kilitten önce: bekleyen grup diske insin
+        if (groupCommit != null) {
+            groupCommit.close();
+        }
+        appendLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                // Map'ler kanal kapandıktan sonra da geçerli; dağıtılmış ByteString'ler bozulmaz
+                segment.mapped = null;
+                segment.channel.close();
+            }
+            mappedBytes.set(0);
+            dirLock.release();
+            lockChannel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.family;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.family.SetGetCommand.DataStore;
+import com.google.protobuf.ByteString;
+
+import family.Codec;
+import family.StoredMessage;
+
+/**
+ * Değerleri sadece bellekte ({@link DataStore}) tutan engine. Disk I/O
+ * olmadığı için diğer engine'lerin üst sınırını ölçmeye ve geçici
+ * kurulumlara uygundur; node yeniden başlayınca değerler kaybolur.
+ */
+public class MemoryStorageEngine implements StorageEngine {
+
+    private final DataStore dataStore = new DataStore();
+    private final AtomicLong bytes = new AtomicLong();
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public void put(int id, Codec codec, ByteString value) {
+        StoredMessage message = StoredMessage.newBuilder().setId(id).setCodec(codec).setPayload(value).build();
+        StoredMessage previous = dataStore.put(id, message);
+        bytes.addAndGet(value.size() - (previous == null ? 0 : previous.getPayload().size()));
+    }
+
+    @Override
+    public StoredMessage get(int id) {
+        return dataStore.lookup(id);
+    }
+
+    @Override
+    public long valueSize(int id) {
+        StoredMessage message = dataStore.lookup(id);
+        return message == null ? -1 : message.getPayload().size();
+    }
+
+    @Override
+    public ChunkedWrite beginChunked(int id, Codec codec, long totalSize) {
+        return new ChunkedWrite() {
+            // Parçalar kopyalanmadan birleştirilir (rope)
+            private ByteString value = ByteString.EMPTY;
+
+            @Override
+            public void write(ByteString data) {
+                value = value.concat(data);
+            }
+
+            @Override
+            public void commit() throws IOException {
+                if (value.size() != totalSize) {
+                    throw new IOException("Value for " + id + " incomplete: " + value.size() + "/" + totalSize + " B");
+                }
+                put(id, codec, value);
+            }
+
+            @Override
+            public void abort() {
+                value = ByteString.EMPTY;
+            }
+        };
+    }
+
+    @Override
+    public ValueReader openReader(int id) {
+        StoredMessage message = dataStore.lookup(id);
+        if (message == null) {
+            return null;
+        }
+        ByteString value = message.getPayload();
+        return new ValueReader() {
+            private int position = 0;
+
+            @Override
+            public Codec codec() {
+                return message.getCodec();
+            }
+
+            @Override
+            public long size() {
+                return value.size();
+            }
+
+            @Override
+            public int read(ByteBuffer dst) {
+                if (position >= value.size()) {
+                    return -1;
+                }
+                int n = Math.min(dst.remaining(), value.size() - position);
+                value.substring(position, position + n).copyTo(dst);
+                position += n;
+                return n;
+            }
+
+            @Override
+            public ByteString next(int maxBytes) {
+                if (position >= value.size()) {
+                    return null;
+                }
+                int n = Math.min(maxBytes, value.size() - position);
+                ByteString chunk = value.substring(position, position + n);
+                position += n;
+                return chunk;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return dataStore.size();
+    }
+
+    @Override
+    public boolean persistent() {
+        return false;
+    }
+
+    @Override
+    public String statsReport() {
+        return String.format("Anahtar: %d | Bellekte: %d B%n", dataStore.size(), bytes.get());
+    }
+
+    @Override
+    public void close() {
+    }
+}
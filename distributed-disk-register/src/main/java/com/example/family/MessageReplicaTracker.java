@@ -1,10 +1,10 @@
 package com.example.family;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import family.NodeInfo;
 
@@ -14,25 +14,30 @@ public class MessageReplicaTracker {
 
     public void addReplica(int messageId, NodeInfo member) {
          // Mesaj için liste yoksa oluştur
-        // computeIfAbsent: yoksa yeni ArrayList oluşturup map'e koyar
+        // computeIfAbsent: yoksa yeni liste oluşturup map'e koyar
+        // CopyOnWriteArrayList: paralel replikasyon callback'leri aynı anda ekleyebilir,
+        // okuyucular (GET, STATS) kilitsiz iterate eder.
         List<NodeInfo> currentMembers =
-                messageToMembers.computeIfAbsent(messageId, k -> new ArrayList<>());
+                messageToMembers.computeIfAbsent(messageId, k -> new CopyOnWriteArrayList<>());
 
-        // Aynı node daha önce eklenmiş mi kontrol et
-        boolean alreadyExists = currentMembers.stream()
-                .anyMatch(m ->
-                        m.getHost().equals(member.getHost()) &&
-                        m.getPort() == member.getPort()
-                );
+        // Kontrol + ekleme atomik olmalı, yoksa aynı node iki kez eklenebilir
+        synchronized (currentMembers) {
+            // Aynı node daha önce eklenmiş mi kontrol et
+            boolean alreadyExists = currentMembers.stream()
+                    .anyMatch(m ->
+                            m.getHost().equals(member.getHost()) &&
+                            m.getPort() == member.getPort()
+                    );
 
-        // Duplicate yoksa listeye ekle
-        if (!alreadyExists) {
-            currentMembers.add(member);
+            // Duplicate yoksa listeye ekle
+            if (!alreadyExists) {
+                currentMembers.add(member);
+            }
         }
     }
 
     public List<NodeInfo> getMembersForMessage(int messageId) {
-        return messageToMembers.getOrDefault(messageId, new ArrayList<>());
+        return messageToMembers.getOrDefault(messageId, Collections.emptyList());
     }
 
     public void removeDeadMember(NodeInfo deadMember) {
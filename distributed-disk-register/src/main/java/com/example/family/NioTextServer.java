@@ -0,0 +1,416 @@
+package com.example.family;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * java.nio Selector tabanlı, bloklamayan metin sunucusu.
+ *
+ * Az sayıda event loop thread'i tüm bağlantıların okuma/yazmasını yapar;
+ * satırlar ayrıldıktan sonra komut worker havuzunda işlenir (replikasyon ve
+ * GET bloklar). Her bağlantıda en fazla pipelineDepth komut aynı anda
+ * işlenir ({@link CommandPipeline}), cevaplar istek sırasıyla yazılır.
+ * Bekleyen satır sayısı MAX_PENDING_LINES'a ulaşırsa o bağlantıdan okuma
+ * durdurulur.
+ *
+ * Bağlantının tüm durumu sadece kendi event loop thread'inde değiştirilir;
+ * worker thread'ler cevabı loop'a görev (task) olarak geri verir.
+ *
+ * coalesceWrites açıkken cevaplar hemen yazılmaz: loop'un bir turunda gelen
+ * tüm cevaplar tur sonunda bağlantı başına tek gathering write ile gider.
+ */
+public class NioTextServer implements TextServer {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_LINES = 64;
+    // Tek gathering write'ta en fazla kaç cevap
+    private static final int MAX_WRITE_BATCH = 64;
+
+    private final int port;
+    private final Handler handler;
+    private final EventLoop[] loops;
+    private final ExecutorService workers;
+    private final int pipelineDepth;
+    private final boolean coalesceWrites;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private volatile ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    private volatile ClientLimiter limiter;
+
+    public NioTextServer(int port, Handler handler, int selectorThreads, int workerThreads, int pipelineDepth,
+            boolean coalesceWrites) {
+        this.port = port;
+        this.handler = handler;
+        this.pipelineDepth = Math.max(1, pipelineDepth);
+        this.coalesceWrites = coalesceWrites;
+        this.loops = new EventLoop[Math.max(1, selectorThreads)];
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), r -> {
+            Thread t = new Thread(r, "text-worker-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        running = true;
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop();
+            Thread t = new Thread(loops[i], "text-loop-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+        }
+        // Kabul bloklayarak ayrı thread'de; bağlantılar loop'lara sırayla dağıtılır
+        new Thread(this::acceptLoop, "LeaderTextListener").start();
+    }
+
+    @Override
+    public void useLimiter(ClientLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+        }
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+            }
+        }
+        workers.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (running) {
+                SocketChannel channel = serverChannel.accept();
+                InetAddress address = ((InetSocketAddress) channel.getRemoteAddress()).getAddress();
+                ClientLimiter limiter = this.limiter;
+                if (limiter != null && !limiter.tryAcquireConnection(address)) {
+                    // Henüz bloklayan modda: sebebi yaz ve kapat
+                    channel.write(ByteBuffer.wrap(ClientLimiter.textError("Too many connections")));
+                    closeQuietly(channel);
+                    continue;
+                }
+                Log.info("New TCP client connected: %s", channel.getRemoteAddress());
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                EventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+                loop.execute(() -> loop.register(channel, address, limiter));
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Error in leader text listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Loop'taki tüm bağlantılar aynı okuma tamponunu paylaşır
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        // Bu turda cevabı gelen, tur sonunda yazılacak bağlantılar
+        private final ArrayDeque<Connection> dirty = new ArrayDeque<>();
+        private final ByteBuffer[] gather = new ByteBuffer[MAX_WRITE_BATCH];
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel, InetAddress address, ClientLimiter limiter) {
+            Connection connection = new Connection(this, channel, address, limiter);
+            try {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                Log.warn("TCP client register error: %s", e.getMessage());
+                connection.close();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isValid() && key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    }
+
+                    Connection connection;
+                    while ((connection = dirty.poll()) != null) {
+                        connection.dirty = false;
+                        connection.flush();
+                        connection.closeIfDone();
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                System.err.println("Text event loop stopped: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private final class Connection {
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private final InetAddress address;
+        private final ClientLimiter limiter;
+        private SelectionKey key;
+
+        // Yarım kalan satır (bir sonraki okumada tamamlanır)
+        private byte[] partial = new byte[256];
+        private int partialLength = 0;
+
+        private final ArrayDeque<byte[]> pendingLines = new ArrayDeque<>();
+        private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+        private final CommandPipeline pipeline;
+        private boolean inputClosed = false;
+        private boolean closed = false;
+        private boolean dirty = false;
+
+        Connection(EventLoop loop, SocketChannel channel, InetAddress address, ClientLimiter limiter) {
+            this.loop = loop;
+            this.channel = channel;
+            this.address = address;
+            this.limiter = limiter;
+            // Cevaplar ve boşalan slotlar loop'a görev olarak döner (sıra korunur)
+            this.pipeline = new CommandPipeline(handler, workers,
+                    response -> loop.execute(() -> onResponse(response)),
+                    released -> loop.execute(this::onReleased));
+        }
+
+        void onReadable() {
+            ByteBuffer buffer = loop.readBuffer;
+            try {
+                while (pendingLines.size() < MAX_PENDING_LINES) {
+                    buffer.clear();
+                    int n = channel.read(buffer);
+                    if (n < 0) {
+                        inputClosed = true;
+                        if (partialLength > 0) {
+                            // Son satır '\n' olmadan bitmiş olabilir
+                            pendingLines.add(takeLine());
+                        }
+                        break;
+                    }
+                    if (n == 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    splitLines(buffer);
+                }
+            } catch (IOException e) {
+                Log.warn("TCP client handler error: %s", e.getMessage());
+                close();
+                return;
+            }
+            updateReadInterest();
+            dispatchNext();
+            closeIfDone();
+        }
+
+        void onWritable() {
+            flush();
+            closeIfDone();
+        }
+
+        private void splitLines(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                int end = start;
+                while (end < buffer.limit() && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int chunk = end - start;
+                if (partialLength + chunk > LineReader.MAX_LINE_BYTES) {
+                    throw new IOException("Line exceeds " + LineReader.MAX_LINE_BYTES + " bytes");
+                }
+                if (partialLength + chunk > partial.length) {
+                    partial = Arrays.copyOf(partial, Math.max(partialLength + chunk, partial.length * 2));
+                }
+                buffer.get(partial, partialLength, chunk);
+                partialLength += chunk;
+
+                if (buffer.hasRemaining()) {
+                    buffer.get(); // '\n' atla
+                    pendingLines.add(takeLine());
+                }
+            }
+        }
+
+        private byte[] takeLine() {
+            int length = partialLength;
+            if (length > 0 && partial[length - 1] == '\r') {
+                length--;
+            }
+            partialLength = 0;
+            return Arrays.copyOf(partial, length);
+        }
+
+        private void dispatchNext() {
+            while (!closed && !pendingLines.isEmpty() && pipeline.inFlight() < pipelineDepth) {
+                byte[] line = pendingLines.poll();
+                String rejection = limiter == null ? null : limiter.checkCommand(address, line.length);
+                if (rejection != null) {
+                    // Reddedilen komutun cevabı da sırasıyla yazılır
+                    pipeline.submitResponse(ClientLimiter.textError(rejection));
+                } else {
+                    pipeline.submit(line);
+                }
+            }
+        }
+
+        private void onResponse(byte[] response) {
+            if (closed) {
+                return;
+            }
+            TextWriteStats.onResponse();
+            writeQueue.add(ByteBuffer.wrap(response));
+            if (!coalesceWrites) {
+                flush();
+            } else if (!dirty) {
+                dirty = true;
+                loop.dirty.add(this);
+            }
+        }
+
+        private void onReleased() {
+            if (closed) {
+                return;
+            }
+            updateReadInterest();
+            dispatchNext();
+            closeIfDone();
+        }
+
+        private void flush() {
+            try {
+                while (!writeQueue.isEmpty()) {
+                    // Kuyruktaki cevaplar tek syscall ile (gathering write)
+                    ByteBuffer[] gather = loop.gather;
+                    int n = 0;
+                    for (ByteBuffer buffer : writeQueue) {
+                        if (n == gather.length) {
+                            break;
+                        }
+                        gather[n++] = buffer;
+                    }
+                    channel.write(gather, 0, n);
+                    TextWriteStats.onWrite();
+                    boolean socketFull = gather[n - 1].hasRemaining();
+                    Arrays.fill(gather, 0, n, null);
+                    while (!writeQueue.isEmpty() && !writeQueue.peek().hasRemaining()) {
+                        writeQueue.poll();
+                    }
+                    if (socketFull) {
+                        // Soket tamponu dolu: yazılabilir olunca devam
+                        setInterest(SelectionKey.OP_WRITE, true);
+                        return;
+                    }
+                }
+                setInterest(SelectionKey.OP_WRITE, false);
+            } catch (IOException e) {
+                Log.warn("TCP client handler error: %s", e.getMessage());
+                close();
+            }
+        }
+
+        // Bekleyen satırlar sınırı aştıysa okumayı durdur (backpressure)
+        private void updateReadInterest() {
+            setInterest(SelectionKey.OP_READ, !inputClosed && pendingLines.size() < MAX_PENDING_LINES);
+        }
+
+        private void setInterest(int op, boolean on) {
+            if (closed || !key.isValid()) {
+                return;
+            }
+            int ops = key.interestOps();
+            int updated = on ? (ops | op) : (ops & ~op);
+            if (updated != ops) {
+                key.interestOps(updated);
+            }
+        }
+
+        private void closeIfDone() {
+            if (inputClosed && pendingLines.isEmpty() && pipeline.inFlight() == 0 && writeQueue.isEmpty()) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+            if (limiter != null) {
+                limiter.releaseConnection(address);
+            }
+        }
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -1,15 +1,12 @@
 package com.example.family;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -17,6 +14,8 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -25,21 +24,23 @@ import com.example.family.SetGetCommand.Command;
 import com.example.family.SetGetCommand.CommandParser;
 // DataStore import removed
 import com.example.family.SetGetCommand.GetCommand;
+import com.example.family.SetGetCommand.MGetCommand;
+import com.example.family.SetGetCommand.MSetCommand;
 import com.example.family.SetGetCommand.SetCommand;
+import com.google.protobuf.ByteString;
 
 import family.ChatMessage;
 import family.Empty;
 import family.FamilyServiceGrpc;
 import family.FamilyView;
-import family.MessageId;
+import family.MessageIds;
 import family.NodeInfo;
 import family.StorageServiceGrpc;
 import family.StoreResult;
 import family.StoredMessage;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+import family.StoredMessages;
 import io.grpc.Server;
-import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
 
 public class NodeMain {
     private static final int START_PORT = 5555;
@@ -48,9 +49,27 @@ public class NodeMain {
     private static final int LEADER_PORT = 5555;
     // STORE Removed
     private static final MessageReplicaTracker REPLICA_TRACKER = new MessageReplicaTracker();
+    // Tüm gRPC çağrıları bu havuzdaki uzun ömürlü kanalları kullanır
+    private static final ChannelPool CHANNEL_POOL = new ChannelPool();
+    // Config yüklendikten sonra oluşturulur (CB_* ayarları)
+    private static CircuitBreakers circuitBreakers;
+    // Config yüklendikten sonra oluşturulur (HEDGE_* ayarları)
+    private static HedgedReader hedgedReader;
+    // REPLICATION_MODE=batch ise SET'ler follower başına StoreBatch ile gruplanır (null = unary)
+    private static ReplicationBatcher replicationBatcher;
+    // İstemci portlarında bağlantı sınırı ve IP başına hız sınırı (metin + ikili ortak)
+    private static ClientLimiter clientLimiter;
+    // Lider komutlarının family'ye yayını (asenkron, toplu)
+    private static ChatBroadcaster chatBroadcaster;
+    // REPLICATION_MODE=stream ise her follower'a kalıcı Replicate stream'i kullanılır (null = kapalı)
+    private static ReplicationStreamer replicationStreamer;
 
     public static void main(String[] args) throws Exception {
         ToleranceConfig.loadConfig();
+        GrpcTransport transport = GrpcTransport.fromConfig();
+        CHANNEL_POOL.useTransport(transport);
+        circuitBreakers = new CircuitBreakers();
+        hedgedReader = new HedgedReader(CHANNEL_POOL, circuitBreakers);
 
         String host = getMyLanIp();
         System.out.println("MY HOST = " + host);
@@ -77,20 +96,24 @@ public class NodeMain {
                 .build();
 
         NodeRegistry registry = new NodeRegistry();
+        registry.addRemovalListener(CHANNEL_POOL::evict);
+        registry.addRemovalListener(circuitBreakers::forget);
+        configureReplication(registry, self);
         FamilyServiceImpl service = new FamilyServiceImpl(registry, self);
-        StorageServiceImpl storageService = new StorageServiceImpl();
+        // Her node'un kendi log dizini (aynı makinede birden çok node çalışabilir)
+        StorageServiceImpl storageService = new StorageServiceImpl(new File(MESSAGE_DIR, "node-" + port));
 
-        Server server = ServerBuilder
-                .forPort(port)
-                .addService(service)
-                .addService(storageService)
-                .build()
+        Server server = transport
+                .buildServer(port, service, storageService)
                 .start();
 
-        System.out.printf("Node started on %s:%d%n", host, port);
+        System.out.printf("Node started on %s:%d (%s)%n", host, port, transport.describe());
 
         if (port == START_PORT) {
+            chatBroadcaster = new ChatBroadcaster(CHANNEL_POOL, circuitBreakers, registry, self);
+            clientLimiter = ClientLimiter.fromConfig();
             startLeaderTextListener(registry, self);
+            startLeaderBinaryListener(registry, self);
         } else {
             notifyReadyToLeader(LEADER_HOST, LEADER_PORT, host, port);
         }
@@ -104,177 +127,210 @@ public class NodeMain {
         server.awaitTermination();
     }
 
+    // REPLICATION_MODE: unary (varsayılan) | batch | stream
+    private static void configureReplication(NodeRegistry registry, NodeInfo self) {
+        String mode = ToleranceConfig.getString("REPLICATION_MODE", "unary");
+        if (mode.equalsIgnoreCase("batch")) {
+            replicationBatcher = new ReplicationBatcher(CHANNEL_POOL,
+                    ToleranceConfig.getLong("BATCH_WINDOW_MICROS", 2000),
+                    ToleranceConfig.getInt("BATCH_MAX_SIZE", 64));
+        } else if (mode.equalsIgnoreCase("stream")) {
+            // Lider yeniden başlarsa seq sıfırlanır; source'a başlangıç zamanını ekliyoruz
+            String source = self.getHost() + ":" + self.getPort() + "#" + System.currentTimeMillis();
+            replicationStreamer = new ReplicationStreamer(CHANNEL_POOL, source, registry::contains,
+                    ToleranceConfig.getInt("STREAM_WINDOW", 1024),
+                    ToleranceConfig.getInt("STREAM_MAX_RECONNECTS", 5),
+                    ToleranceConfig.getLong("STREAM_WINDOW_WAIT_MS", 5000));
+            registry.addRemovalListener(replicationStreamer::close);
+        } else {
+            mode = "unary";
+        }
+        System.out.println("Replication mode: " + mode);
+    }
+
     private static void startLeaderTextListener(NodeRegistry registry, NodeInfo self) {
         // Sadece lider (5555 portlu node) bu methodu çağırmalı
-        new Thread(() -> {
-            try (ServerSocket serverSocket = new ServerSocket(6666)) {
-                System.out.printf("Leader listening for text on TCP %s:%d%n",
-                        self.getHost(), 6666);
-
-                while (true) {
-                    Socket client = serverSocket.accept();
-                    new Thread(() -> handleClientTextConnection(client, registry, self)).start();
-                }
-
-            } catch (IOException e) {
-                System.err.println("Error in leader text listener: " + e.getMessage());
-            }
-        }, "LeaderTextListener").start();
+        TextServer textServer = TextServer.fromConfig(6666, line -> handleTextCommand(line, registry, self));
+        textServer.useLimiter(clientLimiter);
+        try {
+            textServer.start();
+            System.out.printf("Leader listening for text on TCP %s:%d (%s)%n",
+                    self.getHost(), 6666, textServer.getClass().getSimpleName());
+        } catch (IOException e) {
+            System.err.println("Error in leader text listener: " + e.getMessage());
+        }
     }
 
-    private static void handleClientTextConnection(Socket client,
-            NodeRegistry registry,
-            NodeInfo self) {
-        System.out.println("New TCP client connected: " + client.getRemoteSocketAddress());
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(client.getInputStream()))) {
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String text = line.trim();
-                if (text.isEmpty()) {
-                    continue;
-                }
-
-                // Kendi üstüne de yaz
-                System.out.println(" Received from TCP: " + text);
-
-                if (text.equalsIgnoreCase("STATS")) {
-                    String statsReport = calculateLoadStats(registry);
+    private static void startLeaderBinaryListener(NodeRegistry registry, NodeInfo self) {
+        if (!ToleranceConfig.getBoolean("BINARY_ENABLED", true)) {
+            return;
+        }
+        int port = ToleranceConfig.getInt("BINARY_PORT", 6667);
+        BinaryServer binaryServer = new BinaryServer(port, request -> handleBinaryCommand(request, registry, self));
+        binaryServer.useLimiter(clientLimiter);
+        try {
+            binaryServer.start();
+            System.out.printf("Leader listening for binary frames on TCP %s:%d%n", self.getHost(), port);
+        } catch (IOException e) {
+            System.err.println("Error in leader binary listener: " + e.getMessage());
+        }
+    }
 
-                    // Sonucu client'a yaz
-                    PrintWriter writer = new PrintWriter(client.getOutputStream(), true);
-                    writer.println(statsReport);
+    // İkili protokol: değer zaten ByteString olarak okunmuş durumda, parse yok.
+    // Değerler büyük olabileceği için family'ye broadcast edilmez.
+    private static BinaryProtocol.Response handleBinaryCommand(BinaryProtocol.Request request,
+            NodeRegistry registry, NodeInfo self) {
+        switch (request.opcode) {
+            case BinaryProtocol.OP_SET: {
+                String result = replicateToMembers(registry, self, request.key, request.value);
+                return result.startsWith("ERROR")
+                        ? BinaryProtocol.Response.error(result)
+                        : BinaryProtocol.Response.ok(ByteString.copyFromUtf8(result));
+            }
+            case BinaryProtocol.OP_GET: {
+                ByteString value = retrieveFromMembers(registry, request.key);
+                return value == null ? BinaryProtocol.Response.notFound() : BinaryProtocol.Response.ok(value);
+            }
+            case BinaryProtocol.OP_STATS:
+                return BinaryProtocol.Response.ok(ByteString.copyFromUtf8(calculateLoadStats(registry)));
+            default:
+                return BinaryProtocol.Response.error("Unknown opcode " + request.opcode);
+        }
+    }
 
-                    // Döngünün başına dön (Broadcast yapmaya gerek yok)
-                    continue;
-                }
+    // Tek bir metin komutunu işler ve '\n' ile biten cevabı döner (boş satırda null).
+    // Thread-per-connection ve NIO sunucuları aynı mantığı kullanır.
+    private static byte[] handleTextCommand(byte[] line, NodeRegistry registry, NodeInfo self) {
+        if (isBlank(line)) {
+            return null;
+        }
 
-                try {
-                    // 1) Komutu parse et
-                    Command cmd = CommandParser.parse(text);
+        // Satır String'e çevrilmez: log argümanı enqueue'da kırpılır
+        Log.debug(" Received from TCP: %s", line);
 
-                    String result;
+        if (CommandParser.isKeyword(line, "STATS")) {
+            // Broadcast yapmaya gerek yok
+            return response(calculateLoadStats(registry), null);
+        }
 
-                    if (cmd instanceof SetCommand setCmd) {
-                        int messageId = setCmd.getKey();
-                        String messageText = setCmd.getValue();
+        try {
+            // 1) Komutu parse et
+            Command cmd = CommandParser.parse(line);
+            byte[] response;
 
-                        // Disk'e yaz (Disabled)
-                        // writeMessageToDisk(messageId, messageText);
+            if (cmd instanceof SetCommand setCmd) {
+                int messageId = setCmd.getKey();
+                ByteString messageValue = setCmd.getValueBytes();
 
-                        // Distributed replication (Consistent Hashing)
-                        result = replicateToMembers(registry, self, messageId, messageText);
+                // Disk'e yaz (Disabled)
+                // writeMessageToDisk(messageId, messageText);
 
-                    } else if (cmd instanceof GetCommand getCmd) {
-                        int messageId = getCmd.getKey();
+                // Distributed replication (Consistent Hashing)
+                response = response(replicateToMembers(registry, self, messageId, messageValue), null);
 
-                        // Diskten oku (Disabled)
-                        // String value = readMessageFromDisk(messageId);
+            } else if (cmd instanceof GetCommand getCmd) {
+                int messageId = getCmd.getKey();
 
-                        // Kendi diskinde yoksa, üyelerden almayı dene
-                        String value = retrieveFromMembers(registry, messageId);
+                // Diskten oku (Disabled)
+                // String value = readMessageFromDisk(messageId);
 
-                        if (value == null) {
-                            result = "NOT_FOUND";
-                        } else {
-                            result = "OK " + value;
-                        }
+                // Kendi diskinde yoksa, üyelerden almayı dene
+                ByteString value = retrieveFromMembers(registry, messageId);
 
-                    } else {
-                        result = "ERROR: Unknown command";
-                    }
-                    // Client'a cevabı yolluyoruz
-                    PrintWriter writer = new PrintWriter(client.getOutputStream(), true);
-                    writer.println(result);
-
-                    long ts = System.currentTimeMillis();
-                    ChatMessage msg = ChatMessage.newBuilder()
-                            .setText(text)
-                            .setFromHost(self.getHost())
-                            .setFromPort(self.getPort())
-                            .setTimestamp(ts)
-                            .build();
-
-                    // Tüm family üyelerine broadcast et
-                    broadcastToFamily(registry, self, msg);
-
-                } catch (IllegalArgumentException e) {
-                    // Hatalı komut → ERROR dön
-                    System.out.println("ERROR: " + e.getMessage());
+                if (value == null) {
+                    response = response("NOT_FOUND", null);
+                } else {
+                    response = response("OK ", value);
                 }
 
-            }
+            } else if (cmd instanceof MSetCommand msetCmd) {
+                // Anahtarlar üye başına tek StoreBatch ile replike edilir
+                response = response(replicateManyToMembers(registry, self, msetCmd), null);
+
+            } else if (cmd instanceof MGetCommand mgetCmd) {
+                // "OK n" + istek sırasıyla her anahtar için "OK <değer>" veya "NOT_FOUND"
+                ByteString[] values = retrieveManyFromMembers(registry, mgetCmd);
+                ByteString out = ByteString.copyFrom(response("OK " + values.length, null));
+                for (ByteString value : values) {
+                    out = out.concat(ByteString.copyFrom(
+                            value == null ? response("NOT_FOUND", null) : response("OK ", value)));
+                }
+                response = out.toByteArray();
 
-        } catch (IOException e) {
-            System.err.println("TCP client handler error: " + e.getMessage());
-        } finally {
-            try {
-                client.close();
-            } catch (IOException ignored) {
+            } else {
+                response = response("ERROR: Unknown command", null);
             }
-        }
-    }
-
-    private static void broadcastToFamily(NodeRegistry registry,
-            NodeInfo self,
-            ChatMessage msg) {
 
-        List<NodeInfo> members = registry.snapshot();
+            long ts = System.currentTimeMillis();
+            ChatMessage msg = ChatMessage.newBuilder()
+                    .setText(broadcastText(cmd))
+                    .setFromHost(self.getHost())
+                    .setFromPort(self.getPort())
+                    .setTimestamp(ts)
+                    .build();
 
-        for (NodeInfo n : members) {
-            // Kendimize tekrar gönderme
-            if (n.getHost().equals(self.getHost()) && n.getPort() == self.getPort()) {
-                continue;
-            }
+            // Tüm family üyelerine broadcast et (kuyruğa at, istemciyi bekletme)
+            chatBroadcaster.submit(msg);
 
-            ManagedChannel channel = null;
-            try {
-                channel = ManagedChannelBuilder
-                        .forAddress(n.getHost(), n.getPort())
-                        .usePlaintext()
-                        .build();
+            return response;
 
-                FamilyServiceGrpc.FamilyServiceBlockingStub stub = FamilyServiceGrpc.newBlockingStub(channel);
+        } catch (IllegalArgumentException e) {
+            // Hatalı komut → ERROR dön
+            Log.debug("ERROR: %s", e.getMessage());
+            return response("ERROR: " + e.getMessage(), null);
+        }
+    }
 
-                stub.receiveChat(msg);
+    // Yayın metni parse edilmiş komuttan: değerin kendisi değil boyu gider
+    // (SET başına değer kopyası/UTF-8 decode yok, ikili değer bozulmaz)
+    private static String broadcastText(Command cmd) {
+        if (cmd instanceof SetCommand setCmd) {
+            return "SET " + setCmd.getKey() + " <" + setCmd.getValueBytes().size() + " bytes>";
+        } else if (cmd instanceof GetCommand getCmd) {
+            return "GET " + getCmd.getKey();
+        } else if (cmd instanceof MSetCommand msetCmd) {
+            return "MSET <" + msetCmd.size() + " keys>";
+        } else if (cmd instanceof MGetCommand mgetCmd) {
+            return "MGET <" + mgetCmd.size() + " keys>";
+        }
+        return cmd.getClass().getSimpleName();
+    }
 
-                System.out.printf("Broadcasted message to %s:%d%n", n.getHost(), n.getPort());
+    // Cevap baytları tek dizi halinde: prefix + (varsa) ham değer baytları + '\n'
+    private static byte[] response(String prefix, ByteString value) {
+        byte[] head = prefix.getBytes(StandardCharsets.UTF_8);
+        int valueSize = value == null ? 0 : value.size();
+        byte[] response = new byte[head.length + valueSize + 1];
+        System.arraycopy(head, 0, response, 0, head.length);
+        if (value != null) {
+            value.copyTo(response, head.length);
+        }
+        response[response.length - 1] = '\n';
+        return response;
+    }
 
-            } catch (Exception e) {
-                System.err.printf("Failed to send to %s:%d (%s)%n",
-                        n.getHost(), n.getPort(), e.getMessage());
-            } finally {
-                if (channel != null) {
-                    channel.shutdownNow();
-                }
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && b != '\t') {
+                return false;
             }
         }
+        return true;
     }
 
     private static void discoverFamilyFromLeader(String LEADER_HOST, int LEADER_PORT,
             NodeRegistry registry) {
 
-        ManagedChannel channel = null;
-        try {
-            channel = ManagedChannelBuilder
-                    .forAddress(LEADER_HOST, LEADER_PORT)
-                    .usePlaintext()
-                    .build();
-
-            FamilyServiceGrpc.FamilyServiceBlockingStub stub = FamilyServiceGrpc.newBlockingStub(channel);
-
-            // join değil! sadece family snapshot al
-            FamilyView view = stub.getFamily(Empty.newBuilder().build());
+        FamilyServiceGrpc.FamilyServiceBlockingStub stub = RpcDeadlines.withDeadline(
+                FamilyServiceGrpc.newBlockingStub(CHANNEL_POOL.get(LEADER_HOST, LEADER_PORT)),
+                RpcDeadlines.pingMs());
 
-            // registry'ye "upsert" mantığıyla basmak en sağlıklısı:
-            for (NodeInfo n : view.getMembersList()) {
-                registry.upsert(n);
-            }
+        // join değil! sadece family snapshot al
+        FamilyView view = stub.getFamily(Empty.newBuilder().build());
 
-        } finally {
-            if (channel != null)
-                channel.shutdownNow();
+        // registry'ye "upsert" mantığıyla basmak en sağlıklısı:
+        for (NodeInfo n : view.getMembersList()) {
+            registry.upsert(n);
         }
     }
 
@@ -308,6 +364,9 @@ public class NodeMain {
 
     private static void startHealthChecker(NodeRegistry registry, NodeInfo self) {
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        int maxMissed = Math.max(1, ToleranceConfig.getInt("HEALTH_CHECK_FAILURES", 3));
+        // host:port -> ardışık cevapsız ping sayısı (sadece zamanlayıcı thread'i kullanır)
+        Map<String, Integer> missed = new HashMap<>();
 
         scheduler.scheduleAtFixedRate(() -> {
             List<NodeInfo> members = registry.snapshot();
@@ -318,28 +377,31 @@ public class NodeMain {
                     continue;
                 }
 
-                ManagedChannel channel = null;
                 try {
-                    channel = ManagedChannelBuilder
-                            .forAddress(n.getHost(), n.getPort())
-                            .usePlaintext()
-                            .build();
-
-                    FamilyServiceGrpc.FamilyServiceBlockingStub stub = FamilyServiceGrpc.newBlockingStub(channel);
+                    FamilyServiceGrpc.FamilyServiceBlockingStub stub = RpcDeadlines.withDeadline(
+                            FamilyServiceGrpc.newBlockingStub(CHANNEL_POOL.get(n)), RpcDeadlines.pingMs());
 
                     // Ping gibi kullanıyoruz: cevap bizi ilgilendirmiyor,
                     // sadece RPC'nin hata fırlatmaması önemli.
                     stub.getFamily(Empty.newBuilder().build());
+                    circuitBreakers.onSuccess(n);
+                    missed.remove(n.getHost() + ":" + n.getPort());
 
                 } catch (Exception e) {
+                    circuitBreakers.onFailure(n, e);
+                    // Tek bir gecikmiş cevap (GC duraklaması, yoğunluk) üyeyi düşürmesin
+                    int count = missed.merge(n.getHost() + ":" + n.getPort(), 1, Integer::sum);
+                    if (count < maxMissed) {
+                        System.out.printf("Node %s:%d did not answer ping (%d/%d)%n",
+                                n.getHost(), n.getPort(), count, maxMissed);
+                        continue;
+                    }
                     // Bağlantı yok / node ölmüş → listeden çıkar
                     System.out.printf("Node %s:%d unreachable, removing from family%n",
                             n.getHost(), n.getPort());
+                    missed.remove(n.getHost() + ":" + n.getPort());
+                    // remove() havuzdaki kanalı da kapatır (removal listener)
                     registry.remove(n);
-                } finally {
-                    if (channel != null) {
-                        channel.shutdownNow();
-                    }
                 }
             }
 
@@ -354,19 +416,12 @@ public class NodeMain {
         }
     }
 
-    private static String replicateToMembers(NodeRegistry registry, NodeInfo self, int messageId, String messageText) {
+    private static String replicateToMembers(NodeRegistry registry, NodeInfo self, int messageId, ByteString messageValue) {
         int tolerance = ToleranceConfig.getTolerance();
-        List<NodeInfo> allMembers = registry.snapshot();
-
-        List<NodeInfo> eligibleMembers = new ArrayList<>();
-        for (NodeInfo member : allMembers) {
-            if (!(member.getHost().equals(self.getHost()) && member.getPort() == self.getPort())) {
-                eligibleMembers.add(member);
-            }
-        }
+        List<NodeInfo> eligibleMembers = eligibleMembers(registry, self);
 
         if (eligibleMembers.isEmpty()) {
-            System.out.println("No members available for replication, only leader exists");
+            Log.info("No members available for replication, only leader exists");
             return "OK (ONLY LEADER)";
         }
 
@@ -374,60 +429,216 @@ public class NodeMain {
         // 50 virtual node kullanarak router oluştur
         ConsistentHashRouter router = new ConsistentHashRouter(eligibleMembers, 50);
 
-        List<NodeInfo> selectedMembers = router.getPreferenceList(String.valueOf(messageId), tolerance);
+        List<NodeInfo> selectedMembers = selectReplicas(router, eligibleMembers.size(), messageId, tolerance);
+        if (selectedMembers.isEmpty()) {
+            return "ERROR: No healthy replicas";
+        }
 
-        // 4. ADIM: Seçilen üyelere gönder
+        // 4. ADIM: Seçilen üyelere paralel gönder (async stub)
+        // SET süresi artık replikaların toplamı değil, en yavaş gerekli ack kadar.
         int requiredReplicas = selectedMembers.size();
-        int successCount = 0;
+        ReplicationQuorum quorum = new ReplicationQuorum(requiredReplicas, selectedMembers.size());
+
+        // COMPRESSION açıksa büyük değerler bir kez (liderde) sıkıştırılır
+        StoredMessage msg = PayloadCodec.encode(messageId, messageValue);
+
         for (NodeInfo member : selectedMembers) {
-            ManagedChannel channel = null;
-            try {
-                channel = ManagedChannelBuilder
-                        .forAddress(member.getHost(), member.getPort())
-                        .usePlaintext()
-                        .build();
+            sendStore(member, msg, quorum);
+        }
 
-                StorageServiceGrpc.StorageServiceBlockingStub stub = StorageServiceGrpc.newBlockingStub(channel);
+        boolean success = await(quorum);
 
-                StoredMessage msg = StoredMessage.newBuilder()
-                        .setId(messageId)
-                        .setText(messageText)
-                        .build();
+        if (success) { // En az 1 yere bile gitse OK sayabiliriz (tasarım tercihi)
+            return "OK";
+        } else {
+            return "ERROR: Replication failed";
+        }
+    }
 
-                StoreResult result = stub.store(msg);
+    // Tek bir replikaya asenkron Store gönderir; cevap hangi sırayla gelirse gelsin
+    // tracker ve quorum sayaçları callback içinde güncellenir.
+    private static void sendStore(NodeInfo member, StoredMessage msg, ReplicationQuorum quorum) {
+        CompletableFuture<Boolean> stored;
+        if (PayloadCodec.encodedSize(msg) >= ChunkedTransfer.threshold()) {
+            // Büyük değer: tek StoredMessage yerine parça parça stream
+            stored = ChunkedTransfer.store(CHANNEL_POOL.get(member), msg.getId(), msg.getCodec(), msg.getPayload());
+        } else if (replicationStreamer != null) {
+            // Stream açık kalsa bile ack gelmezse SET sonsuza kadar beklemesin
+            stored = replicationStreamer.submit(member, msg)
+                    .orTimeout(RpcDeadlines.storeMs(), TimeUnit.MILLISECONDS);
+        } else if (replicationBatcher != null) {
+            stored = replicationBatcher.submit(member, msg);
+        } else {
+            stored = storeUnary(member, msg);
+        }
 
-                if (result.getSuccess()) {
-                    REPLICA_TRACKER.addReplica(messageId, member);
-                    successCount++;
-                    System.out.printf("Replicated msg %d to %s:%d (LoadBalanced)%n",
-                            messageId, member.getHost(), member.getPort());
-                }
+        stored.whenComplete((success, error) -> onStoreResult(member, msg, quorum, success, error));
+    }
 
-            } catch (Exception e) {
-                System.err.printf("Failed to replicate to %s:%d - %s%n",
-                        member.getHost(), member.getPort(), e.getMessage());
-            } finally {
-                if (channel != null) {
-                    channel.shutdownNow();
+    // Bir replikadan gelen Store sonucu: tracker, quorum ve devre kesici güncellenir
+    private static void onStoreResult(NodeInfo member, StoredMessage msg, ReplicationQuorum quorum,
+            Boolean success, Throwable error) {
+        if (error != null) {
+            circuitBreakers.onFailure(member, error);
+            Log.warn("Failed to replicate to %s:%d - %s",
+                    member.getHost(), member.getPort(), error.getMessage());
+            quorum.onFailure();
+        } else if (success) {
+            circuitBreakers.onSuccess(member);
+            REPLICA_TRACKER.addReplica(msg.getId(), member);
+            Log.debug("Replicated msg %d to %s:%d (LoadBalanced)",
+                    msg.getId(), member.getHost(), member.getPort());
+            quorum.onAck();
+        } else {
+            Log.warn("Replica %s:%d rejected msg %d",
+                    member.getHost(), member.getPort(), msg.getId());
+            circuitBreakers.onSuccess(member); // cevap verdi: canlı
+            quorum.onFailure();
+        }
+    }
+
+    // Halkadaki üyeler sırayla; devresi açık olanlar atlanıp sıradakine geçilir
+    private static List<NodeInfo> selectReplicas(ConsistentHashRouter router, int memberCount,
+            int messageId, int tolerance) {
+        List<NodeInfo> ringOrder = router.getPreferenceList(String.valueOf(messageId), memberCount);
+        List<NodeInfo> selectedMembers = new ArrayList<>();
+        for (NodeInfo member : ringOrder) {
+            if (selectedMembers.size() >= tolerance) {
+                break;
+            }
+            if (circuitBreakers.allowRequest(member)) {
+                selectedMembers.add(member);
+            }
+        }
+        return selectedMembers;
+    }
+
+    private static boolean await(ReplicationQuorum quorum) {
+        try {
+            return quorum.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private static List<NodeInfo> eligibleMembers(NodeRegistry registry, NodeInfo self) {
+        List<NodeInfo> eligibleMembers = new ArrayList<>();
+        for (NodeInfo member : registry.snapshot()) {
+            if (!(member.getHost().equals(self.getHost()) && member.getPort() == self.getPort())) {
+                eligibleMembers.add(member);
+            }
+        }
+        return eligibleMembers;
+    }
+
+    /**
+     * MSET: her anahtarın replikaları SET'teki gibi seçilir, sonra mesajlar
+     * üyeye göre gruplanıp üye başına tek StoreBatch ile gönderilir
+     * (anahtar başına bir tur yerine üye başına bir tur). Büyük değerler
+     * yine tek tek chunk'lı gider. Her anahtarın kendi quorum'u vardır.
+     */
+    private static String replicateManyToMembers(NodeRegistry registry, NodeInfo self, MSetCommand cmd) {
+        int tolerance = ToleranceConfig.getTolerance();
+        List<NodeInfo> eligibleMembers = eligibleMembers(registry, self);
+        if (eligibleMembers.isEmpty()) {
+            Log.info("No members available for replication, only leader exists");
+            return "OK (ONLY LEADER)";
+        }
+        ConsistentHashRouter router = new ConsistentHashRouter(eligibleMembers, 50);
+
+        int n = cmd.size();
+        ReplicationQuorum[] quorums = new ReplicationQuorum[n];
+        Map<String, NodeInfo> owners = new HashMap<>();
+        Map<String, List<StoredMessage>> batches = new HashMap<>();
+        Map<String, List<ReplicationQuorum>> batchQuorums = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            int messageId = cmd.getKey(i);
+            List<NodeInfo> selected = selectReplicas(router, eligibleMembers.size(), messageId, tolerance);
+            if (selected.isEmpty()) {
+                quorums[i] = new ReplicationQuorum(1, 1);
+                quorums[i].onFailure();
+                continue;
+            }
+            quorums[i] = new ReplicationQuorum(selected.size(), selected.size());
+            StoredMessage msg = PayloadCodec.encode(messageId, cmd.getValueBytes(i));
+
+            for (NodeInfo member : selected) {
+                if (PayloadCodec.encodedSize(msg) >= ChunkedTransfer.threshold()) {
+                    sendStore(member, msg, quorums[i]);
+                    continue;
                 }
+                String key = member.getHost() + ":" + member.getPort();
+                owners.putIfAbsent(key, member);
+                batches.computeIfAbsent(key, k -> new ArrayList<>()).add(msg);
+                batchQuorums.computeIfAbsent(key, k -> new ArrayList<>()).add(quorums[i]);
             }
         }
 
-        if (successCount >= requiredReplicas) { // En az 1 yere bile gitse OK sayabiliriz (tasarım tercihi)
-            return "OK";
-        } else {
-            return "ERROR: Replication failed";
+        // Üye başına tek StoreBatch
+        for (Map.Entry<String, List<StoredMessage>> entry : batches.entrySet()) {
+            NodeInfo member = owners.get(entry.getKey());
+            List<StoredMessage> batch = entry.getValue();
+            List<ReplicationQuorum> batchQuorum = batchQuorums.get(entry.getKey());
+            List<CompletableFuture<Boolean>> results = ReplicationBatcher.storeBatch(CHANNEL_POOL, member, batch);
+            for (int j = 0; j < batch.size(); j++) {
+                StoredMessage msg = batch.get(j);
+                ReplicationQuorum quorum = batchQuorum.get(j);
+                results.get(j).whenComplete((success, error) -> onStoreResult(member, msg, quorum, success, error));
+            }
+        }
+
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (!await(quorums[i])) {
+                failed.add(cmd.getKey(i));
+            }
         }
+        if (failed.isEmpty()) {
+            return "OK " + n;
+        }
+        return "ERROR: Replication failed for " + failed.size() + " of " + n + " keys "
+                + (failed.size() > 10 ? failed.subList(0, 10) + "..." : failed);
     }
 
-    private static String retrieveFromMembers(NodeRegistry registry, int messageId) {
+    private static CompletableFuture<Boolean> storeUnary(NodeInfo member, StoredMessage msg) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        try {
+            StorageServiceGrpc.StorageServiceStub stub = RpcDeadlines.withDeadline(
+                    StorageServiceGrpc.newStub(CHANNEL_POOL.get(member)), RpcDeadlines.storeMs());
+            stub.store(msg, new StreamObserver<StoreResult>() {
+                @Override
+                public void onNext(StoreResult result) {
+                    future.complete(result.getSuccess());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    future.completeExceptionally(t);
+                }
+
+                @Override
+                public void onCompleted() {
+                    future.complete(false);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static ByteString retrieveFromMembers(NodeRegistry registry, int messageId) {
         // 1) Önce yerel tracker'a bak (biz yazmışsak orada kayıtlıdır)
         List<NodeInfo> members = REPLICA_TRACKER.getMembersForMessage(messageId);
 
         // 2) Eğer yerel tracker'da yoksa (başka node yazmış olabilir),
         // Consistent Hashing ile "olması gereken" yerleri hesapla.
         if (members == null || members.isEmpty()) {
-            System.out.println("Local tracker empty, calculating location with Consistent Hashing...");
+            Log.debug("Local tracker empty, calculating location with Consistent Hashing...");
 
             List<NodeInfo> allNodes = registry.snapshot();
 
@@ -445,39 +656,126 @@ public class NodeMain {
             return null;
         }
 
-        for (NodeInfo member : members) {
-            ManagedChannel channel = null;
-            try {
-                channel = ManagedChannelBuilder
-                        .forAddress(member.getHost(), member.getPort())
-                        .usePlaintext()
-                        .build();
+        // Sırayla değil hedged: ilk replika geç kalırsa sıradakine de sorulur
+        StoredMessage response = hedgedReader.read(members, messageId);
+        if (response == null) {
+            return null;
+        }
+        try {
+            return PayloadCodec.decode(response);
+        } catch (IllegalStateException e) {
+            Log.warn("Failed to decode message %d - %s", messageId, e.getMessage());
+            return null;
+        }
+    }
 
-                StorageServiceGrpc.StorageServiceBlockingStub stub = StorageServiceGrpc.newBlockingStub(channel);
+    /**
+     * MGET: anahtarlar ilk (sağlıklı) replikalarına göre gruplanır ve her üyeye
+     * tek RetrieveMany gönderilir. Üyeden boş cevap gelen anahtar NOT_FOUND
+     * sayılır; çağrı hata verirse o üyenin anahtarları tek tek GET yoluyla
+     * (hedged) okunur. Sonuçlar istek sırasıyla döner (null = bulunamadı).
+     */
+    private static ByteString[] retrieveManyFromMembers(NodeRegistry registry, MGetCommand cmd) {
+        int n = cmd.size();
+        ByteString[] values = new ByteString[n];
+        List<NodeInfo> allNodes = registry.snapshot();
+        if (allNodes.isEmpty()) {
+            return values;
+        }
+        ConsistentHashRouter router = new ConsistentHashRouter(allNodes, 50);
+        int tolerance = ToleranceConfig.getTolerance();
+
+        Map<String, NodeInfo> owners = new HashMap<>();
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int messageId = cmd.getKey(i);
+            List<NodeInfo> members = REPLICA_TRACKER.getMembersForMessage(messageId);
+            if (members == null || members.isEmpty()) {
+                members = router.getPreferenceList(String.valueOf(messageId), tolerance);
+            }
+            if (members.isEmpty()) {
+                continue;
+            }
+            NodeInfo primary = circuitBreakers.order(members).get(0);
+            String key = primary.getHost() + ":" + primary.getPort();
+            owners.putIfAbsent(key, primary);
+            positions.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
 
-                MessageId msgId = MessageId.newBuilder()
-                        .setId(messageId)
-                        .build();
+        // Tüm üyelere aynı anda sor, sonra cevapları topla
+        Map<String, CompletableFuture<StoredMessages>> calls = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            MessageIds.Builder ids = MessageIds.newBuilder();
+            for (int i : entry.getValue()) {
+                ids.addIds(cmd.getKey(i));
+            }
+            calls.put(entry.getKey(), retrieveManyUnary(owners.get(entry.getKey()), ids.build()));
+        }
 
-                StoredMessage response = stub.retrieve(msgId);
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            NodeInfo member = owners.get(entry.getKey());
+            List<Integer> slots = entry.getValue();
+            List<StoredMessage> messages = null;
+            try {
+                messages = calls.get(entry.getKey()).get().getMessagesList();
+                circuitBreakers.onSuccess(member);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return values;
+            } catch (ExecutionException e) {
+                circuitBreakers.onFailure(member, e.getCause());
+                Log.warn("RetrieveMany from %s:%d failed - %s",
+                        member.getHost(), member.getPort(), e.getCause().getMessage());
+            }
 
-                if (response != null && !response.getText().isEmpty()) {
-                    System.out.printf("Retrieved message %d from %s:%d%n",
-                            messageId, member.getHost(), member.getPort());
-                    return response.getText();
+            for (int j = 0; j < slots.size(); j++) {
+                int i = slots.get(j);
+                int messageId = cmd.getKey(i);
+                if (messages == null || j >= messages.size()) {
+                    values[i] = retrieveFromMembers(registry, messageId);
+                    continue;
                 }
-
-            } catch (Exception e) {
-                System.err.printf("Failed to retrieve from %s:%d - %s%n",
-                        member.getHost(), member.getPort(), e.getMessage());
-            } finally {
-                if (channel != null) {
-                    channel.shutdownNow();
+                StoredMessage message = messages.get(j);
+                try {
+                    if (message.getChunked()) {
+                        message = ChunkedTransfer.retrieve(CHANNEL_POOL.get(member), messageId);
+                    }
+                    values[i] = message == null || !PayloadCodec.hasValue(message) ? null : PayloadCodec.decode(message);
+                } catch (RuntimeException e) {
+                    Log.warn("Failed to read message %d from %s:%d - %s",
+                            messageId, member.getHost(), member.getPort(), e.getMessage());
+                    values[i] = retrieveFromMembers(registry, messageId);
                 }
             }
         }
+        return values;
+    }
+
+    private static CompletableFuture<StoredMessages> retrieveManyUnary(NodeInfo member, MessageIds ids) {
+        CompletableFuture<StoredMessages> future = new CompletableFuture<>();
+        try {
+            StorageServiceGrpc.StorageServiceStub stub = RpcDeadlines.withDeadline(
+                    StorageServiceGrpc.newStub(CHANNEL_POOL.get(member)), RpcDeadlines.retrieveMs());
+            stub.retrieveMany(ids, new StreamObserver<StoredMessages>() {
+                @Override
+                public void onNext(StoredMessages result) {
+                    future.complete(result);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    future.completeExceptionally(t);
+                }
 
-        return null;
+                @Override
+                public void onCompleted() {
+                    future.complete(StoredMessages.getDefaultInstance());
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
     }
 
     private static String calculateLoadStats(NodeRegistry registry) {
@@ -523,17 +821,31 @@ public class NodeMain {
         }
         sb.append("============================\n");
 
+        sb.append("=== HEDGED GET ===\n");
+        sb.append(hedgedReader.statsReport());
+        sb.append("=== COMPRESSION ===\n");
+        sb.append(PayloadCodec.statsReport());
+        sb.append("=== CIRCUIT BREAKERS ===\n");
+        sb.append(circuitBreakers.statsReport());
+        sb.append("=== BROADCAST ===\n");
+        sb.append(chatBroadcaster == null ? "Kapalı\n" : chatBroadcaster.statsReport());
+        sb.append("=== CLIENT LIMITS ===\n");
+        sb.append(clientLimiter == null ? "Kapalı\n" : clientLimiter.statsReport());
+        sb.append("=== LOG ===\n");
+        sb.append(Log.statsReport());
+        sb.append("=== TEXT WRITES ===\n");
+        sb.append(TextWriteStats.statsReport());
+        sb.append("============================\n");
+
         return sb.toString();
     }
 
     private static int requestPortFromLeader(String LEADER_HOST, int LEADER_PORT, String myHost) {
 
-        ManagedChannel channel = ManagedChannelBuilder
-                .forAddress(LEADER_HOST, LEADER_PORT)
-                .usePlaintext()
-                .build();
-
-        FamilyServiceGrpc.FamilyServiceBlockingStub stub = FamilyServiceGrpc.newBlockingStub(channel);
+        // Lider kanalı havuzda kalır; sonraki discover/refresh çağrıları aynı bağlantıyı kullanır
+        FamilyServiceGrpc.FamilyServiceBlockingStub stub = RpcDeadlines.withDeadline(
+                FamilyServiceGrpc.newBlockingStub(CHANNEL_POOL.get(LEADER_HOST, LEADER_PORT)),
+                RpcDeadlines.pingMs());
 
         NodeInfo request = NodeInfo.newBuilder()
                 .setHost(myHost)
@@ -543,32 +855,22 @@ public class NodeMain {
 
         FamilyView view = stub.join(request);
 
-        channel.shutdownNow();
-
         return view.getAssignedPort();
     }
 
     private static void notifyReadyToLeader(String LEADER_HOST, int LEADER_PORT, String myHost, int myPort) {
 
-        ManagedChannel channel = ManagedChannelBuilder
-                .forAddress(LEADER_HOST, LEADER_PORT)
-                .usePlaintext()
-                .build();
-
-        try {
-            FamilyServiceGrpc.FamilyServiceBlockingStub stub = FamilyServiceGrpc.newBlockingStub(channel);
-
-            NodeInfo readyReq = NodeInfo.newBuilder()
-                    .setHost(myHost)
-                    .setPort(myPort)
-                    .setReady(true)
-                    .build();
+        FamilyServiceGrpc.FamilyServiceBlockingStub stub = RpcDeadlines.withDeadline(
+                FamilyServiceGrpc.newBlockingStub(CHANNEL_POOL.get(LEADER_HOST, LEADER_PORT)),
+                RpcDeadlines.pingMs());
 
-            stub.join(readyReq);
+        NodeInfo readyReq = NodeInfo.newBuilder()
+                .setHost(myHost)
+                .setPort(myPort)
+                .setReady(true)
+                .build();
 
-        } finally {
-            channel.shutdownNow();
-        }
+        stub.join(readyReq);
     }
 
     private static boolean canBindPort(int port) {
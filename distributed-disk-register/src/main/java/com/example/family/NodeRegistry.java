@@ -6,12 +6,17 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class NodeRegistry {
 
     // Thread-safe node set
     private final Set<NodeInfo> nodes = ConcurrentHashMap.newKeySet();
 
+    // Üye aileden düştüğünde haber verilecekler (örn. ChannelPool eviction)
+    private final List<Consumer<NodeInfo>> removalListeners = new CopyOnWriteArrayList<>();
+
     // Yeni bir node ekle
     public void add(NodeInfo node) {
         nodes.add(node);
@@ -27,17 +32,37 @@ public class NodeRegistry {
         return List.copyOf(nodes);
     }
 
-    // ❗ host + port'a göre sil
-    public void remove(NodeInfo node) {
-        nodes.removeIf(n ->
+    // host + port'a göre üye mi
+    public boolean contains(NodeInfo node) {
+        return nodes.stream().anyMatch(n ->
                 n.getHost().equals(node.getHost()) &&
                 n.getPort() == node.getPort()
         );
     }
 
+    public void addRemovalListener(Consumer<NodeInfo> listener) {
+        removalListeners.add(listener);
+    }
+
+    // ❗ host + port'a göre sil
+    public void remove(NodeInfo node) {
+        if (removeQuietly(node)) {
+            for (Consumer<NodeInfo> listener : removalListeners) {
+                listener.accept(node);
+            }
+        }
+    }
+
     // UPDATE + INSERT
     public synchronized void upsert(NodeInfo node) {
-        remove(node); // aynı host:port varsa sil
+        removeQuietly(node); // aynı host:port varsa sil (üye düşmedi, listener'lar tetiklenmez)
         add(node);    // güncel hali ekle
     }
+
+    private boolean removeQuietly(NodeInfo node) {
+        return nodes.removeIf(n ->
+                n.getHost().equals(node.getHost()) &&
+                n.getPort() == node.getPort()
+        );
+    }
 }
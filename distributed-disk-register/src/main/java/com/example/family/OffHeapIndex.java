@@ -0,0 +1,260 @@
+package com.example.family;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * int anahtar → long değer eşlemesi; heap dışında (direct ByteBuffer),
+ * open addressing + linear probing. LogStructuredStore'un indeksi: değer
+ * paketlenmiş kayıt yeridir ({@link #pack}).
+ *
+ * Slot başına 12 B: anahtarlar bir int dizisinde, değerler aynı sırada bir
+ * long dizisinde (iki ayrı direct buffer; VarHandle erişimi hizalı kalsın
+ * diye). Doluluk MAX_LOAD'u geçince tablo GROWTH katına büyür; doluluk
+ * MAX_LOAD/GROWTH ile MAX_LOAD arasında kalır, anahtar başına 14-18 B.
+ * Heap'te anahtar başına nesne yok: GC onlarca milyon anahtarı taramaz.
+ *
+ * Eşzamanlılık: okuma kilitsizdir. Yazanlar tek bir kilitle sıralanır.
+ * Yeni anahtarda önce değer, sonra anahtar (release) yazılır; okuyan
+ * anahtarı acquire ile okuyup eşleşirse değeri okur, boş slot (anahtar 0)
+ * görünce durur. Silme yok, dolayısıyla tombstone da yok. Büyütme yazan
+ * kilidi altında yeni tabloya kopyalar ve tabloyu tek volatile atamayla
+ * değiştirir: okuyanlar kopyalama boyunca eski tabloyu okumaya devam eder,
+ * sadece yazanlar bekler. Eski tablo açıkça serbest bırakılmaz (okuyan hâlâ
+ * onu tarıyor olabilir); GC onu okuyan kalmayınca bırakır. O zamana kadar
+ * direct bellekte durur; MaxDirectMemorySize dolarsa JDK GC'yi kendisi
+ * tetikler.
+ *
+ * Boş slot anahtarı 0 olduğu için anahtarlar ^ EMPTY_FLIP ile saklanır;
+ * bunun 0'a düşürdüğü tek anahtar (Integer.MIN_VALUE) ayrı bir alanda durur.
+ */
+public final class OffHeapIndex {
+
+    /** get'in "yok" cevabı (pack hiçbir yer için bunu üretmez). */
+    public static final long MISSING = -1L;
+
+    // Paketlenmiş değer: [segment: 16 bit][offset: 31 bit][length: 17 bit]
+    static final int SEGMENT_BITS = 16;
+    static final int OFFSET_BITS = 31;
+    static final int LENGTH_BITS = 17;
+    // Tüm bitleri 1 olan değer MISSING'dir: en büyük segment id'si kullanılmaz
+    static final int MAX_SEGMENT = (1 << SEGMENT_BITS) - 2;
+    static final long MAX_OFFSET = (1L << OFFSET_BITS) - 1;
+    /** Bu boyu aşan değerlerde boy slotta tutulmaz; kayıt başlığından okunur. */
+    static final int LENGTH_ON_DISK = (1 << LENGTH_BITS) - 1;
+
+    private static final double MAX_LOAD = 0.85;
+    private static final double GROWTH = 1.25;
+    private static final int MIN_CAPACITY = 1024;
+    // long dizisi tek direct buffer: 2 GB / 8
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / Long.BYTES;
+
+    private static final int EMPTY_FLIP = Integer.MIN_VALUE;
+    private static final int EMPTY = 0;
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final class Table {
+        final int capacity;
+        final ByteBuffer keys;
+        final ByteBuffer values;
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            // allocateDirect sıfırlanmış gelir: bütün slotlar boş
+            this.keys = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder());
+            this.values = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+        }
+
+        long bytes() {
+            return (long) capacity * (Integer.BYTES + Long.BYTES);
+        }
+    }
+
+    private volatile Table table;
+    private volatile int size = 0;
+    // Integer.MIN_VALUE anahtarının değeri (saklanan hali boş slotla çakışır)
+    private volatile long flippedZeroValue = MISSING;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong resizes = new AtomicLong();
+    private volatile long lastResizeNanos = 0;
+
+    public OffHeapIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    public OffHeapIndex(int expectedKeys) {
+        table = new Table(capacityFor(expectedKeys));
+    }
+
+    /** Segment, offset ve boyu tek long'a paketler. */
+    public static long pack(int segment, long offset, int length) {
+        if (segment < 0 || segment > MAX_SEGMENT) {
+            throw new IllegalArgumentException("Segment id " + segment + " exceeds " + MAX_SEGMENT);
+        }
+        if (offset < 0 || offset > MAX_OFFSET) {
+            throw new IllegalArgumentException("Offset " + offset + " exceeds " + MAX_OFFSET);
+        }
+        int storedLength = length >= LENGTH_ON_DISK ? LENGTH_ON_DISK : length;
+        return ((long) segment << (OFFSET_BITS + LENGTH_BITS)) | (offset << LENGTH_BITS) | storedLength;
+    }
+
+    public static int segment(long packed) {
+        return (int) (packed >>> (OFFSET_BITS + LENGTH_BITS));
+    }
+
+    public static long offset(long packed) {
+        return (packed >>> LENGTH_BITS) & MAX_OFFSET;
+    }
+
+    /** Slottaki boy; LENGTH_ON_DISK ise gerçek boy kayıt başlığında. */
+    public static int length(long packed) {
+        return (int) (packed & LENGTH_ON_DISK);
+    }
+
+    /** Kilitsiz okuma; yoksa MISSING. */
+    public long get(int key) {
+        int stored = key ^ EMPTY_FLIP;
+        if (stored == EMPTY) {
+            return flippedZeroValue;
+        }
+        Table t = table;
+        int slot = slotOf(stored, t.capacity);
+        while (true) {
+            int k = (int) INTS.getAcquire(t.keys, slot * Integer.BYTES);
+            if (k == stored) {
+                return (long) LONGS.getAcquire(t.values, slot * Long.BYTES);
+            }
+            if (k == EMPTY) {
+                return MISSING;
+            }
+            slot = slot + 1 == t.capacity ? 0 : slot + 1;
+        }
+    }
+
+    /**
+     * Anahtarın değerini fn(önceki) yapar (önceki yoksa MISSING); önceki
+     * değeri döner. fn yazan kilidi altında çalışır, kısa olmalı.
+     */
+    public long update(int key, LongUnaryOperator fn) {
+        writeLock.lock();
+        try {
+            int stored = key ^ EMPTY_FLIP;
+            if (stored == EMPTY) {
+                long previous = flippedZeroValue;
+                long next = fn.applyAsLong(previous);
+                if (next != previous) {
+                    flippedZeroValue = next;
+                    if (previous == MISSING) {
+                        size++;
+                    }
+                }
+                return previous;
+            }
+            Table t = table;
+            int slot = slotOf(stored, t.capacity);
+            while (true) {
+                int k = (int) INTS.get(t.keys, slot * Integer.BYTES);
+                if (k == stored) {
+                    long previous = (long) LONGS.get(t.values, slot * Long.BYTES);
+                    long next = fn.applyAsLong(previous);
+                    if (next != previous) {
+                        LONGS.setRelease(t.values, slot * Long.BYTES, next);
+                    }
+                    return previous;
+                }
+                if (k == EMPTY) {
+                    long next = fn.applyAsLong(MISSING);
+                    if (next == MISSING) {
+                        return MISSING;
+                    }
+                    // Önce değer, sonra anahtar: anahtarı gören okuyucu değeri de görür
+                    LONGS.setRelease(t.values, slot * Long.BYTES, next);
+                    INTS.setRelease(t.keys, slot * Integer.BYTES, stored);
+                    size++;
+                    if (size > t.capacity * MAX_LOAD) {
+                        resize(t);
+                    }
+                    return MISSING;
+                }
+                slot = slot + 1 == t.capacity ? 0 : slot + 1;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long put(int key, long value) {
+        return update(key, previous -> value);
+    }
+
+    // writeLock altında: yeni tabloya kopyala, sonra tek atamayla değiştir
+    private void resize(Table old) {
+        if (old.capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Index is full: " + size + " keys");
+        }
+        long start = System.nanoTime();
+        Table grown = new Table((int) Math.min(MAX_CAPACITY, (long) (old.capacity * GROWTH) + 1));
+        for (int slot = 0; slot < old.capacity; slot++) {
+            int k = (int) INTS.get(old.keys, slot * Integer.BYTES);
+            if (k == EMPTY) {
+                continue;
+            }
+            int target = slotOf(k, grown.capacity);
+            while ((int) INTS.get(grown.keys, target * Integer.BYTES) != EMPTY) {
+                target = target + 1 == grown.capacity ? 0 : target + 1;
+            }
+            LONGS.set(grown.values, target * Long.BYTES, (long) LONGS.get(old.values, slot * Long.BYTES));
+            INTS.set(grown.keys, target * Integer.BYTES, k);
+        }
+        // volatile yazma: yeni tablonun içeriği okuyuculara bununla görünür
+        table = grown;
+        resizes.incrementAndGet();
+        lastResizeNanos = System.nanoTime() - start;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Tabloların kapladığı off-heap bayt (büyütme sırasındaki geçici kopya hariç). */
+    public long bytes() {
+        return table.bytes();
+    }
+
+    public double bytesPerKey() {
+        int n = size;
+        return n == 0 ? 0 : bytes() / (double) n;
+    }
+
+    public String statsReport() {
+        Table t = table;
+        return String.format("İndeks: %d anahtar / %d slot (%%%.0f) | Off-heap: %d B | Anahtar başına: %.1f B"
+                + " | Büyütme: %d (son %.1f ms)%n",
+                size, t.capacity, 100.0 * size / t.capacity, t.bytes(), bytesPerKey(),
+                resizes.get(), lastResizeNanos / 1_000_000.0);
+    }
+
+    private static int capacityFor(int expectedKeys) {
+        long capacity = (long) Math.ceil(Math.max(0, expectedKeys) / MAX_LOAD) + 1;
+        return (int) Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, capacity));
+    }
+
+    // murmur3 fmix32 ile karıştır, [0, capacity) aralığına çarpma ile indir (2'nin kuvveti gerekmez)
+    private static int slotOf(int stored, int capacity) {
+        int h = stored;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (int) (((h & 0xFFFFFFFFL) * capacity) >>> 32);
+    }
+}
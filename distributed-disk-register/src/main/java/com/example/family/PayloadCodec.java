@@ -0,0 +1,192 @@
+package com.example.family;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import family.Codec;
+import family.StoredMessage;
+
+/**
+ * İsteğe bağlı payload sıkıştırma katmanı.
+ *
+ * Değer her zaman StoredMessage.payload (bytes) içinde taşınır; codec nasıl
+ * kodlandığını söyler. Lider SET değerini COMPRESSION_MIN_BYTES'tan büyükse
+ * sıkıştırıp DEFLATE bayrağıyla gönderir. Follower bu baytları
+ * olduğu gibi (codec bayrağıyla) diske yazar; GET'te lider açar.
+ * Böylece hem ağdaki hem diskteki bayt sayısı düşer, CPU maliyeti sadece
+ * liderde ödenir.
+ *
+ * DEFLATE payload formatı: [4 bayt ham uzunluk][raw deflate verisi]
+ *
+ * tolerance.conf ayarları:
+ *   COMPRESSION=none | deflate
+ *   COMPRESSION_MIN_BYTES=512
+ */
+public class PayloadCodec {
+
+    private static final ThreadMXBean THREAD_MX = ManagementFactory.getThreadMXBean();
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER =
+            ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private static final AtomicLong rawBytes = new AtomicLong();
+    private static final AtomicLong encodedBytes = new AtomicLong();
+    private static final AtomicLong compressedCount = new AtomicLong();
+    private static final AtomicLong compressCpuNanos = new AtomicLong();
+    private static final AtomicLong decompressCpuNanos = new AtomicLong();
+
+    public static boolean enabled() {
+        return ToleranceConfig.getString("COMPRESSION", "none").equalsIgnoreCase("deflate");
+    }
+
+    public static int minBytes() {
+        return ToleranceConfig.getInt("COMPRESSION_MIN_BYTES", 512);
+    }
+
+    /**
+     * Değeri uygun codec ile StoredMessage.payload'a yerleştirir. Sıkıştırma
+     * kapalıysa, değer küçükse ya da sıkıştırma kazandırmıyorsa baytlar
+     * olduğu gibi (kopyasız) payload'a konur, codec NONE kalır; text alanı
+     * kullanılmaz.
+     */
+    public static StoredMessage encode(int id, ByteString raw) {
+        StoredMessage.Builder builder = StoredMessage.newBuilder().setId(id);
+        rawBytes.addAndGet(raw.size());
+
+        if (enabled() && raw.size() >= minBytes()) {
+            byte[] compressed = compress(raw);
+            if (compressed.length < raw.size()) {
+                compressedCount.incrementAndGet();
+                encodedBytes.addAndGet(compressed.length);
+                return builder.setCodec(Codec.DEFLATE)
+                        .setPayload(UnsafeByteOperations.unsafeWrap(compressed))
+                        .build();
+            }
+        }
+        encodedBytes.addAndGet(raw.size());
+        return builder.setPayload(raw).build();
+    }
+
+    /**
+     * StoredMessage'daki değerin ham baytlarını döner.
+     * payload boşsa eski (text alanlı) mesaj kabul edilir.
+     */
+    public static ByteString decode(StoredMessage message) {
+        if (message.getCodec() == Codec.DEFLATE) {
+            return UnsafeByteOperations.unsafeWrap(decompress(message.getPayload()));
+        }
+        if (message.getPayload().isEmpty() && !message.getText().isEmpty()) {
+            return ByteString.copyFromUtf8(message.getText());
+        }
+        return message.getPayload();
+    }
+
+    /**
+     * Kayıt başlığındaki codec baytı. Tanınmayan değer (bozuk kayıt ya da
+     * daha yeni bir sürümün yazdığı codec) IOException'dır; forNumber'ın
+     * null'ı StoredMessage'a yazılırken NPE'ye dönmesin.
+     */
+    public static Codec codecOf(int number) throws IOException {
+        Codec codec = Codec.forNumber(number);
+        if (codec == null) {
+            throw new IOException("Unknown codec " + number);
+        }
+        return codec;
+    }
+
+    // Mesajda değer var mı (boş cevap = bulunamadı)
+    public static boolean hasValue(StoredMessage message) {
+        return !message.getPayload().isEmpty() || !message.getText().isEmpty();
+    }
+
+    // Değerin kablodaki boyutu (chunk kararı için)
+    public static int encodedSize(StoredMessage message) {
+        return message.getPayload().isEmpty() ? message.getText().length() : message.getPayload().size();
+    }
+
+    public static byte[] compress(ByteString raw) {
+        long start = cpuTime();
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(raw.asReadOnlyByteBuffer());
+        deflater.finish();
+
+        byte[] out = new byte[4 + raw.size() + raw.size() / 1000 + 64];
+        ByteBuffer.wrap(out).putInt(raw.size());
+        int len = 4;
+        while (!deflater.finished()) {
+            if (len == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            len += deflater.deflate(out, len, out.length - len);
+        }
+        compressCpuNanos.addAndGet(cpuTime() - start);
+        return Arrays.copyOf(out, len);
+    }
+
+    public static byte[] decompress(ByteString payload) {
+        // Başlık diskten/ağdan gelir: ayırmadan önce doğrula (bozuk kayıt OOM'a götürmesin)
+        if (payload.size() < 4) {
+            throw new IllegalStateException("Corrupt DEFLATE payload: " + payload.size() + " bytes, no length header");
+        }
+        long start = cpuTime();
+        ByteBuffer input = payload.asReadOnlyByteBuffer();
+        int rawLength = input.getInt();
+        if (rawLength < 0 || rawLength > LineReader.MAX_LINE_BYTES) {
+            throw new IllegalStateException("Corrupt DEFLATE payload: raw length " + rawLength);
+        }
+        byte[] raw = new byte[rawLength];
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(input);
+        try {
+            int len = 0;
+            while (len < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, len, rawLength - len);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                len += n;
+            }
+            if (len != rawLength) {
+                throw new IllegalStateException("Corrupt DEFLATE payload: " + len + "/" + rawLength + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt DEFLATE payload: " + e.getMessage(), e);
+        } finally {
+            decompressCpuNanos.addAndGet(cpuTime() - start);
+        }
+        return raw;
+    }
+
+    public static String statsReport() {
+        long raw = rawBytes.get();
+        long encoded = encodedBytes.get();
+        return String.format("Codec: %s (min %d B) | Sıkıştırılan: %d | Ham: %d B -> Gönderilen: %d B (oran %.2f) | CPU: sıkıştırma %.1f ms, açma %.1f ms%n",
+                enabled() ? "deflate" : "none", minBytes(),
+                compressedCount.get(), raw, encoded,
+                encoded == 0 ? 1.0 : (double) raw / encoded,
+                compressCpuNanos.get() / 1_000_000.0,
+                decompressCpuNanos.get() / 1_000_000.0);
+    }
+
+    // Mümkünse thread CPU zamanı, değilse duvar saati
+    private static long cpuTime() {
+        return THREAD_MX.isCurrentThreadCpuTimeSupported()
+                ? THREAD_MX.getCurrentThreadCpuTime()
+                : System.nanoTime();
+    }
+}
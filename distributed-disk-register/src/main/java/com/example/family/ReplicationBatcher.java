@@ -0,0 +1,157 @@
+package com.example.family;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import family.NodeInfo;
+import family.StorageServiceGrpc;
+import family.StoreBatchResult;
+import family.StoredMessage;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Liderde aynı follower'a giden SET'leri kısa bir pencere (BATCH_WINDOW_MICROS)
+ * boyunca ya da BATCH_MAX_SIZE mesaja ulaşana kadar biriktirip tek bir
+ * StoreBatch çağrısıyla gönderir. Her submit kendi sonucunu ayrı bir
+ * future üzerinden alır; böylece her client kendi OK/ERROR cevabını görür.
+ */
+public class ReplicationBatcher {
+
+    private final ChannelPool channelPool;
+    private final long windowMicros;
+    private final int maxBatchSize;
+
+    private final Map<String, MemberQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ReplicationBatcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ReplicationBatcher(ChannelPool channelPool, long windowMicros, int maxBatchSize) {
+        this.channelPool = channelPool;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public CompletableFuture<Boolean> submit(NodeInfo member, StoredMessage msg) {
+        MemberQueue queue = queues.computeIfAbsent(member.getHost() + ":" + member.getPort(),
+                k -> new MemberQueue(member));
+        return queue.add(msg);
+    }
+
+    private final class MemberQueue {
+        private final NodeInfo member;
+        private List<StoredMessage> messages = new ArrayList<>();
+        private List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        private boolean flushScheduled = false;
+
+        MemberQueue(NodeInfo member) {
+            this.member = member;
+        }
+
+        CompletableFuture<Boolean> add(StoredMessage msg) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            boolean flushNow = false;
+            synchronized (this) {
+                messages.add(msg);
+                futures.add(future);
+                if (messages.size() >= maxBatchSize) {
+                    flushNow = true;
+                } else if (!flushScheduled) {
+                    flushScheduled = true;
+                    timer.schedule(this::flush, windowMicros, TimeUnit.MICROSECONDS);
+                }
+            }
+            if (flushNow) {
+                flush();
+            }
+            return future;
+        }
+
+        void flush() {
+            List<StoredMessage> batch;
+            List<CompletableFuture<Boolean>> batchFutures;
+            synchronized (this) {
+                flushScheduled = false;
+                if (messages.isEmpty()) {
+                    return;
+                }
+                batch = messages;
+                batchFutures = futures;
+                messages = new ArrayList<>();
+                futures = new ArrayList<>();
+            }
+            send(channelPool, member, batch, batchFutures);
+        }
+    }
+
+    /**
+     * Mesajları tek bir StoreBatch çağrısıyla üyeye gönderir; her mesajın
+     * sonucu aynı sıradaki future'a yazılır. MSET de (pencere beklemeden)
+     * bunu kullanır.
+     */
+    public static List<CompletableFuture<Boolean>> storeBatch(ChannelPool channelPool, NodeInfo member,
+            List<StoredMessage> batch) {
+        List<CompletableFuture<Boolean>> batchFutures = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batchFutures.add(new CompletableFuture<>());
+        }
+        send(channelPool, member, batch, batchFutures);
+        return batchFutures;
+    }
+
+    private static void send(ChannelPool channelPool, NodeInfo member,
+            List<StoredMessage> batch, List<CompletableFuture<Boolean>> batchFutures) {
+        StreamObserver<StoreBatchResult> responseObserver = new StreamObserver<>() {
+            @Override
+            public void onNext(StoreBatchResult result) {
+                // Sonuçlar gönderim sırasıyla gelir
+                for (int i = 0; i < batchFutures.size(); i++) {
+                    boolean ok = i < result.getResultsCount() && result.getResults(i).getSuccess();
+                    batchFutures.get(i).complete(ok);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                Log.warn("StoreBatch to %s:%d failed (%d msgs) - %s",
+                        member.getHost(), member.getPort(), batch.size(), t.getMessage());
+                // Hata olarak iletilir ki devre kesici zaman aşımlarını sayabilsin
+                for (CompletableFuture<Boolean> f : batchFutures) {
+                    f.completeExceptionally(t);
+                }
+            }
+
+            @Override
+            public void onCompleted() {
+                // onNext gelmediyse bekleyen kalmasın
+                completeAll(false);
+            }
+
+            private void completeAll(boolean value) {
+                for (CompletableFuture<Boolean> f : batchFutures) {
+                    f.complete(value);
+                }
+            }
+        };
+
+        try {
+            StreamObserver<StoredMessage> requestObserver = RpcDeadlines.withDeadline(
+                    StorageServiceGrpc.newStub(channelPool.get(member)), RpcDeadlines.storeMs())
+                    .storeBatch(responseObserver);
+            for (StoredMessage msg : batch) {
+                requestObserver.onNext(msg);
+            }
+            requestObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.family;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Paralel replikasyonda gelen cevapları (sırası ne olursa olsun) sayar.
+ * Gerekli ack sayısına ulaşıldığında sonuç true, ulaşmak artık imkansızsa
+ * false olarak tamamlanır. Geç gelen cevaplar sonucu değiştirmez.
+ */
+public class ReplicationQuorum {
+
+    private final int required;
+    private final int total;
+    private final AtomicInteger acks = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    public ReplicationQuorum(int required, int total) {
+        this.required = required;
+        this.total = total;
+        if (required <= 0) {
+            result.complete(true);
+        }
+    }
+
+    public void onAck() {
+        if (acks.incrementAndGet() >= required) {
+            result.complete(true);
+        }
+    }
+
+    public void onFailure() {
+        // Kalan cevapların hepsi başarılı olsa bile required'a ulaşılamıyorsa bitir
+        if (total - failures.incrementAndGet() < required) {
+            result.complete(false);
+        }
+    }
+
+    public CompletableFuture<Boolean> result() {
+        return result;
+    }
+
+    public int getAcks() {
+        return acks.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+}
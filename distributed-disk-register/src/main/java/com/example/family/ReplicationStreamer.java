@@ -0,0 +1,262 @@
+package com.example.family;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import family.NodeInfo;
+import family.ReplicationAck;
+import family.ReplicationFrame;
+import family.StorageServiceGrpc;
+import family.StoredMessage;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+
+/**
+ * Her follower için kalıcı, çift yönlü bir Replicate stream'i tutar.
+ *
+ * SET'ler sıra numaralı (seq) frame'ler olarak stream'e yazılır; follower
+ * kümülatif ack döner. Aynı anda en fazla STREAM_WINDOW frame ack bekleyebilir,
+ * gönderim gRPC flow control'üne (isReady / onReadyHandler) göre yapılır.
+ * Bağlantı koparsa stream yeniden açılır ve son ack'lenen seq'ten sonraki
+ * tüm frame'ler tekrar gönderilir.
+ *
+ * Her MemberStream kendi source'unu kullanır (source + "/" + sayaç): üye
+ * düşüp geri geldiğinde yeni stream seq'e 1'den başlar ve follower'ın eski
+ * stream'den kalan lastAppliedSeq'i bu frame'leri "zaten yazıldı" diye
+ * atlayıp ack'leyemez. Aileden düşmüş üyeye submit yeni stream açmaz.
+ */
+public class ReplicationStreamer {
+
+    private static final long RECONNECT_BACKOFF_MS = 500;
+
+    private final ChannelPool channelPool;
+    private final String source;
+    private final Predicate<NodeInfo> isMember;
+    private final int window;
+    private final int maxReconnects;
+    private final long windowWaitMs;
+
+    private final Map<String, MemberStream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong streamCounter = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ReplicationStreamer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param source lider kimliği; yeniden başlatmalarda farklı olmalı (örn. host:port#startMillis)
+     * @param isMember üye hâlâ ailede mi (düşmüş üyeye stream açılmaz)
+     */
+    public ReplicationStreamer(ChannelPool channelPool, String source, Predicate<NodeInfo> isMember,
+            int window, int maxReconnects, long windowWaitMs) {
+        this.channelPool = channelPool;
+        this.source = source;
+        this.isMember = isMember;
+        this.window = Math.max(1, window);
+        this.maxReconnects = maxReconnects;
+        this.windowWaitMs = windowWaitMs;
+    }
+
+    public CompletableFuture<Boolean> submit(NodeInfo member, StoredMessage msg) {
+        // Tercih listesi üye düşmeden önce alınmış olabilir
+        if (!isMember.test(member)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        MemberStream stream = streams.computeIfAbsent(key(member), k -> new MemberStream(member));
+        // Kontrolle stream'in eklenmesi arasında düştüyse close'u kaçırmış olabiliriz: kendimiz kapat
+        if (!isMember.test(member)) {
+            close(member);
+        }
+        return stream.send(msg);
+    }
+
+    // Üye aileden düştüğünde stream kapatılır, bekleyen yazmalar başarısız sayılır
+    public void close(NodeInfo member) {
+        MemberStream stream = streams.remove(key(member));
+        if (stream != null) {
+            stream.shutdown();
+        }
+    }
+
+    private static String key(NodeInfo member) {
+        return member.getHost() + ":" + member.getPort();
+    }
+
+    private static final class Pending {
+        final ReplicationFrame frame;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Pending(ReplicationFrame frame) {
+            this.frame = frame;
+        }
+    }
+
+    private final class MemberStream implements ClientResponseObserver<ReplicationFrame, ReplicationAck> {
+        private final NodeInfo member;
+        private final String streamSource = source + "/" + streamCounter.incrementAndGet();
+        private final Semaphore inFlight = new Semaphore(window);
+
+        // Aşağıdaki alanlar "this" kilidi ile korunur
+        private final NavigableMap<Long, Pending> unacked = new TreeMap<>();
+        private ClientCallStreamObserver<ReplicationFrame> requestStream;
+        private long nextSeq = 1;
+        private long lastSentSeq = 0;
+        private long lastAckedSeq = 0;
+        private int reconnectAttempts = 0;
+        private boolean reconnectScheduled = false;
+        private boolean closed = false;
+
+        MemberStream(NodeInfo member) {
+            this.member = member;
+        }
+
+        CompletableFuture<Boolean> send(StoredMessage msg) {
+            // Backpressure: pencere doluysa çağıran thread bekler
+            boolean acquired;
+            try {
+                acquired = inFlight.tryAcquire(windowWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            Pending pending;
+            synchronized (this) {
+                if (closed) {
+                    inFlight.release();
+                    return CompletableFuture.completedFuture(false);
+                }
+                long seq = nextSeq++;
+                pending = new Pending(ReplicationFrame.newBuilder()
+                        .setSeq(seq)
+                        .setSource(streamSource)
+                        .setMessage(msg)
+                        .build());
+                unacked.put(seq, pending);
+
+                if (requestStream == null && !reconnectScheduled) {
+                    connect();
+                } else {
+                    drain();
+                }
+            }
+            return pending.future;
+        }
+
+        // Yeni stream aç; gönderim onReadyHandler üzerinden başlar
+        private void connect() {
+            lastSentSeq = lastAckedSeq; // son ack'ten sonrasını yeniden gönder
+            requestStream = (ClientCallStreamObserver<ReplicationFrame>) StorageServiceGrpc
+                    .newStub(channelPool.get(member))
+                    .replicate(this);
+            drain();
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<ReplicationFrame> stream) {
+            stream.setOnReadyHandler(() -> {
+                synchronized (MemberStream.this) {
+                    if (stream == requestStream) {
+                        drain();
+                    }
+                }
+            });
+        }
+
+        private void drain() {
+            if (requestStream == null) {
+                return;
+            }
+            while (requestStream.isReady()) {
+                Map.Entry<Long, Pending> next = unacked.higherEntry(lastSentSeq);
+                if (next == null) {
+                    break;
+                }
+                requestStream.onNext(next.getValue().frame);
+                lastSentSeq = next.getKey();
+            }
+        }
+
+        @Override
+        public void onNext(ReplicationAck ack) {
+            synchronized (this) {
+                reconnectAttempts = 0;
+                NavigableMap<Long, Pending> done = unacked.headMap(ack.getAckedSeq(), true);
+                for (Map.Entry<Long, Pending> e : done.entrySet()) {
+                    boolean failed = ack.getFailedSeqsList().contains(e.getKey());
+                    e.getValue().future.complete(!failed);
+                    inFlight.release();
+                }
+                done.clear();
+                lastAckedSeq = Math.max(lastAckedSeq, ack.getAckedSeq());
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            Log.warn("Replication stream to %s:%d broken - %s",
+                    member.getHost(), member.getPort(), t.getMessage());
+            disconnected();
+        }
+
+        @Override
+        public void onCompleted() {
+            disconnected();
+        }
+
+        private synchronized void disconnected() {
+            requestStream = null;
+            if (closed || unacked.isEmpty()) {
+                return;
+            }
+            if (++reconnectAttempts > maxReconnects) {
+                Log.error("Replication stream to %s:%d gave up after %d reconnects",
+                        member.getHost(), member.getPort(), maxReconnects);
+                failAll();
+                return;
+            }
+            reconnectScheduled = true;
+            scheduler.schedule(() -> {
+                synchronized (MemberStream.this) {
+                    reconnectScheduled = false;
+                    if (!closed && requestStream == null) {
+                        connect();
+                    }
+                }
+            }, RECONNECT_BACKOFF_MS * reconnectAttempts, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void shutdown() {
+            closed = true;
+            if (requestStream != null) {
+                requestStream.cancel("member removed", null);
+                requestStream = null;
+            }
+            failAll();
+        }
+
+        private void failAll() {
+            for (Pending p : unacked.values()) {
+                p.future.complete(false);
+                inFlight.release();
+            }
+            unacked.clear();
+            // Bırakılan frame'ler yeniden gönderilmeyecek
+            lastAckedSeq = nextSeq - 1;
+            lastSentSeq = lastAckedSeq;
+        }
+    }
+}
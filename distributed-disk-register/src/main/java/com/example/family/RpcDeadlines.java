@@ -0,0 +1,46 @@
+package com.example.family;
+
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.stub.AbstractStub;
+
+/**
+ * RPC türüne göre deadline süreleri. Cevap vermeyen (TCP'yi kabul edip
+ * hiç yanıt dönmeyen) bir üye SET/GET'i işletim sistemi zaman aşımına
+ * kadar bekletmesin diye her stub çağrısı bir deadline ile yapılır.
+ *
+ * tolerance.conf ayarları:
+ *   STORE_DEADLINE_MS=2000       (Store, StoreBatch, stream ack'i)
+ *   RETRIEVE_DEADLINE_MS=1000    (Retrieve)
+ *   CHUNKED_DEADLINE_MS=30000    (StoreChunked / RetrieveChunked)
+ *   PING_DEADLINE_MS=3000        (sağlık kontrolü, lider ile join/getFamily)
+ *   HEALTH_CHECK_FAILURES=3      (üye bu kadar ardışık ping'e cevap vermezse aileden çıkarılır)
+ *   BROADCAST_DEADLINE_MS=1000   (ReceiveChat)
+ */
+public class RpcDeadlines {
+
+    public static long storeMs() {
+        return ToleranceConfig.getLong("STORE_DEADLINE_MS", 2000);
+    }
+
+    public static long retrieveMs() {
+        return ToleranceConfig.getLong("RETRIEVE_DEADLINE_MS", 1000);
+    }
+
+    public static long chunkedMs() {
+        return ToleranceConfig.getLong("CHUNKED_DEADLINE_MS", 30_000);
+    }
+
+    public static long pingMs() {
+        return ToleranceConfig.getLong("PING_DEADLINE_MS", 3000);
+    }
+
+    public static long broadcastMs() {
+        return ToleranceConfig.getLong("BROADCAST_DEADLINE_MS", 1000);
+    }
+
+    // Deadline her çağrı için yeniden hesaplanmalı: stub'ı çağrıdan hemen önce sar
+    public static <S extends AbstractStub<S>> S withDeadline(S stub, long millis) {
+        return stub.withDeadlineAfter(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,26 +1,208 @@
 package com.example.family.SetGetCommand;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
 public class CommandParser {
 
+    // Tek MSET/MGET'te izin verilen en fazla anahtar
+    public static final int MAX_MULTI_KEYS = 10_000;
+
+    // Tek parser bayt tabanlıdır; String girişi de aynı yoldan geçer
     public static Command parse(String line) {
-        String[] parts = line.split(" ", 3);
+        return parse(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Soketten gelen ham satırı decode etmeden parse eder.
+    // SET değeri satır dizisinin kopyasız bir dilimi (ByteString) olarak taşınır;
+    // değer geçerli UTF-8 olmak zorunda değildir.
+    public static Command parse(byte[] line) {
+        return parse(line, 0, line.length);
+    }
 
-        if (parts.length < 2)
+    /**
+     * Tampondaki [offset, offset + length) aralığındaki satırı yerinde parse eder:
+     * fiil bayt bayt karşılaştırılır, anahtar rakamlardan doğrudan int'e çevrilir,
+     * SET değeri tamponun dilimi olarak verilir. Ara String, split dizisi veya
+     * protobuf nesnesi oluşturulmaz; tek ayırma komut nesnesi ve dilimdir.
+     * Değer dilimi tampona bağlı kalır, çağıran tamponu yeniden kullanmamalıdır.
+     * Satır sonundaki boşluklar (String.trim gibi) atılır: "SET 5 " boş değer
+     * yazmaz, "SET requires id and value" hatası alır.
+     */
+    public static Command parse(byte[] buf, int offset, int length) {
+        int end = trimEnd(buf, offset, offset + length);
+        int start = skipSpaces(buf, offset, end);
+
+        int verbEnd = indexOf(buf, (byte) ' ', start, end);
+        if (verbEnd < 0)
             throw new IllegalArgumentException("Invalid command");
 
-        String cmd = parts[0].toUpperCase();
+        int keyStart = verbEnd + 1;
+        int keyEnd = indexOf(buf, (byte) ' ', keyStart, end);
+
+        if (matchesVerb(buf, start, verbEnd, "SET")) {
+            if (keyEnd < 0)
+                throw new IllegalArgumentException("SET requires id and value");
+            int key = parseKey(buf, keyStart, keyEnd);
+            return new SetCommand(key, UnsafeByteOperations.unsafeWrap(buf, keyEnd + 1, end - keyEnd - 1));
+        }
+
+        if (matchesVerb(buf, start, verbEnd, "GET")) {
+            return new GetCommand(parseKey(buf, keyStart, keyEnd < 0 ? end : keyEnd));
+        }
 
-        switch (cmd) {
-            case "SET":
-                if (parts.length < 3)
-                    throw new IllegalArgumentException("SET requires id and value");
-                return new SetCommand(parts[1], parts[2]);
+        if (matchesVerb(buf, start, verbEnd, "MSET")) {
+            return parseMSet(buf, keyStart, end);
+        }
+
+        if (matchesVerb(buf, start, verbEnd, "MGET")) {
+            return parseMGet(buf, keyStart, end);
+        }
+
+        throw new IllegalArgumentException("Unknown command: "
+                + new String(buf, start, verbEnd - start, StandardCharsets.US_ASCII).toUpperCase());
+    }
+
+    // Satırın anahtarını (SET/GET id) tam parse etmeden bulur; yoksa null.
+    // Pipeline aynı anahtardaki komutları sıralı çalıştırmak için kullanır.
+    public static Integer keyOf(byte[] line) {
+        int start = skipSpaces(line, 0, line.length);
+        int verbEnd = indexOf(line, (byte) ' ', start, line.length);
+        if (verbEnd < 0 || isMultiKey(line))
+            return null;
+        int keyEnd = indexOf(line, (byte) ' ', verbEnd + 1, line.length);
+        try {
+            return parseKey(line, verbEnd + 1, keyEnd < 0 ? line.length : keyEnd);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Satır (baştaki/sondaki boşluklar hariç) tek başına bu kelime mi, ör. STATS
+    public static boolean isKeyword(byte[] line, String keyword) {
+        int end = trimEnd(line, 0, line.length);
+        int start = skipSpaces(line, 0, end);
+        return matchesVerb(line, start, end, keyword);
+    }
 
-            case "GET":
-                return new GetCommand(parts[1]);
+    // MSET / MGET: birden çok anahtara dokunur (pipeline'da bariyer gibi davranır)
+    public static boolean isMultiKey(byte[] line) {
+        int start = skipSpaces(line, 0, line.length);
+        int verbEnd = tokenEnd(line, start, line.length);
+        return matchesVerb(line, start, verbEnd, "MSET") || matchesVerb(line, start, verbEnd, "MGET");
+    }
+
+    // MSET k1 v1 k2 v2 ... ; değerler satırın kopyasız dilimleri
+    private static MSetCommand parseMSet(byte[] line, int from, int end) {
+        int[] keys = new int[8];
+        List<ByteString> values = new ArrayList<>();
+        int pos = from;
+        while (true) {
+            int keyStart = skipSpaces(line, pos, end);
+            if (keyStart >= end)
+                break;
+            int keyEnd = tokenEnd(line, keyStart, end);
+            int valueStart = skipSpaces(line, keyEnd, end);
+            if (valueStart >= end)
+                throw new IllegalArgumentException("MSET requires key/value pairs");
+            int valueEnd = tokenEnd(line, valueStart, end);
+
+            if (values.size() == MAX_MULTI_KEYS)
+                throw new IllegalArgumentException("MSET accepts at most " + MAX_MULTI_KEYS + " keys");
+            if (values.size() == keys.length)
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            keys[values.size()] = parseKey(line, keyStart, keyEnd);
+            values.add(UnsafeByteOperations.unsafeWrap(line, valueStart, valueEnd - valueStart));
+            pos = valueEnd;
+        }
+        if (values.isEmpty())
+            throw new IllegalArgumentException("MSET requires key/value pairs");
+        return new MSetCommand(Arrays.copyOf(keys, values.size()), values);
+    }
+
+    // MGET k1 k2 ...
+    private static MGetCommand parseMGet(byte[] line, int from, int end) {
+        int[] keys = new int[8];
+        int count = 0;
+        int pos = from;
+        while (true) {
+            int keyStart = skipSpaces(line, pos, end);
+            if (keyStart >= end)
+                break;
+            int keyEnd = tokenEnd(line, keyStart, end);
+            if (count == MAX_MULTI_KEYS)
+                throw new IllegalArgumentException("MGET accepts at most " + MAX_MULTI_KEYS + " keys");
+            if (count == keys.length)
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            keys[count++] = parseKey(line, keyStart, keyEnd);
+            pos = keyEnd;
+        }
+        if (count == 0)
+            throw new IllegalArgumentException("MGET requires at least one id");
+        return new MGetCommand(Arrays.copyOf(keys, count));
+    }
+
+    private static int skipSpaces(byte[] line, int from, int end) {
+        while (from < end && line[from] == ' ')
+            from++;
+        return from;
+    }
+
+    // Sondaki boşluk ve kontrol karakterlerini atar (String.trim ile aynı kural)
+    private static int trimEnd(byte[] line, int from, int end) {
+        while (end > from && (line[end - 1] & 0xFF) <= ' ')
+            end--;
+        return end;
+    }
+
+    private static int tokenEnd(byte[] line, int from, int end) {
+        int tokenEnd = indexOf(line, (byte) ' ', from, end);
+        return tokenEnd < 0 ? end : tokenEnd;
+    }
+
+    private static int indexOf(byte[] line, byte b, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (line[i] == b)
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean matchesVerb(byte[] line, int start, int end, String verb) {
+        if (end - start != verb.length())
+            return false;
+        for (int i = 0; i < verb.length(); i++) {
+            // ASCII büyük/küçük harf duyarsız karşılaştırma
+            if ((line[start + i] & 0xDF) != verb.charAt(i))
+                return false;
+        }
+        return true;
+    }
 
-            default:
-                throw new IllegalArgumentException("Unknown command: " + cmd);
+    private static int parseKey(byte[] line, int start, int end) {
+        if (start >= end)
+            throw new IllegalArgumentException("Missing id");
+        boolean negative = line[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= end)
+            throw new NumberFormatException("Invalid id");
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw new NumberFormatException("Invalid id");
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1)
+                throw new NumberFormatException("Invalid id");
         }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE)
+            throw new NumberFormatException("Invalid id");
+        return (int) value;
     }
 }
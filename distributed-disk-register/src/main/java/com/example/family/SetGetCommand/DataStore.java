@@ -3,17 +3,38 @@ package com.example.family.SetGetCommand;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.google.protobuf.ByteString;
+
+import family.StoredMessage;
+
+// Bellekteki anahtar -> değer tablosu; MemoryStorageEngine'in deposu.
+// Değerler codec bayrağıyla, diske yazılacak baytlarla aynı şekilde tutulur.
 public class DataStore {
 
-    private final Map<Integer, String> map = new ConcurrentHashMap<>(); // <String, String> -> <Integer, String>
+    private final Map<Integer, StoredMessage> map = new ConcurrentHashMap<>(); // <Integer, String> -> <Integer, StoredMessage>
 
     public String set(int key, String value) { // String key -> int key
-        map.put(key, value);
+        map.put(key, StoredMessage.newBuilder().setId(key).setPayload(ByteString.copyFromUtf8(value)).build());
         return "OK";
     }
 
     public String get(int key) { // String key -> int key
-        return map.getOrDefault(key, "NOT_FOUND");
+        StoredMessage message = map.get(key);
+        return message == null ? "NOT_FOUND" : message.getPayload().toStringUtf8();
+    }
+
+    // Engine için: değer baytları ve codec olduğu gibi
+    public StoredMessage put(int key, StoredMessage message) {
+        return map.put(key, message);
+    }
+
+    // Yoksa null
+    public StoredMessage lookup(int key) {
+        return map.get(key);
+    }
+
+    public int size() {
+        return map.size();
     }
 
 }
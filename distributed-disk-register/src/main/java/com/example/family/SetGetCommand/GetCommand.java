@@ -1,26 +1,27 @@
 package com.example.family.SetGetCommand;
 
-import family.StoredMessage;
-
 public class GetCommand implements Command {
 
-    private final StoredMessage message;
+    // Sadece anahtar taşınır (parse sırasında protobuf nesnesi kurulmaz)
+    private final int key;
 
     public GetCommand(String key) {
-        this.message = StoredMessage.newBuilder()
-                                    .setId(Integer.parseInt(key))
-                                    .build();
+        this(Integer.parseInt(key));
+    }
+
+    public GetCommand(int key) {
+        this.key = key;
     }
 
     // --- EKLENEN GETTER METODU ---
     public int getKey() {
-        return message.getId();
+        return key;
     }
     // -----------------------------
 
     // Burada rame okuma işlemi yapılır
     @Override
     public String execute(DataStore store) {
-        return store.get(message.getId());
+        return store.get(key);
     }
 }
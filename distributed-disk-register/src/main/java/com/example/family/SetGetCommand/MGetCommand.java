@@ -0,0 +1,33 @@
+package com.example.family.SetGetCommand;
+
+// MGET k1 k2 ... : cevap "OK <n>" + istek sırasıyla n satır (GET cevabı biçiminde)
+public class MGetCommand implements Command {
+
+    private final int[] keys;
+
+    public MGetCommand(int[] keys) {
+        this.keys = keys;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public int getKey(int index) {
+        return keys[index];
+    }
+
+    public int[] getKeys() {
+        return keys.clone();
+    }
+
+    @Override
+    public String execute(DataStore store) {
+        StringBuilder sb = new StringBuilder("OK ").append(keys.length);
+        for (int key : keys) {
+            String value = store.get(key);
+            sb.append('\n').append(value.equals("NOT_FOUND") ? value : "OK " + value);
+        }
+        return sb.toString();
+    }
+}
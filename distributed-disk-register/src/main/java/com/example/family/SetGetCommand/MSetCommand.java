@@ -0,0 +1,40 @@
+package com.example.family.SetGetCommand;
+
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+
+// MSET k1 v1 k2 v2 ... : değerler boşluk içeremez (tek kelime)
+public class MSetCommand implements Command {
+
+    private final int[] keys;
+    private final List<ByteString> values;
+
+    public MSetCommand(int[] keys, List<ByteString> values) {
+        if (keys.length != values.size()) {
+            throw new IllegalArgumentException("MSET requires key/value pairs");
+        }
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public int getKey(int index) {
+        return keys[index];
+    }
+
+    public ByteString getValueBytes(int index) {
+        return values.get(index);
+    }
+
+    @Override
+    public String execute(DataStore store) {
+        for (int i = 0; i < keys.length; i++) {
+            store.set(keys[i], values.get(i).toStringUtf8());
+        }
+        return "OK " + keys.length;
+    }
+}
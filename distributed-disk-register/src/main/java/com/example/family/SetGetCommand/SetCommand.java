@@ -1,31 +1,39 @@
 package com.example.family.SetGetCommand;
 
-import family.StoredMessage;
+import com.google.protobuf.ByteString;
 
 public class SetCommand implements Command {
 
-    private final StoredMessage message;
+    private final int key;
+    // Değer byte olarak taşınır; String'e sadece gerektiğinde çevrilir
+    private final ByteString value;
 
     public SetCommand(String key, String value) {
-        this.message = StoredMessage.newBuilder()
-                                    .setId(Integer.parseInt(key))
-                                    .setText(value)
-                                    .build();
+        this(Integer.parseInt(key), ByteString.copyFromUtf8(value));
+    }
+
+    public SetCommand(int key, ByteString value) {
+        this.key = key;
+        this.value = value;
     }
 
     // --- EKLENEN GETTER METODLARI ---
     public int getKey() {
-        return message.getId();
+        return key;
     }
 
     public String getValue() {
-        return message.getText();
+        return value.toStringUtf8();
+    }
+
+    public ByteString getValueBytes() {
+        return value;
     }
     // --------------------------------
 
     // Burada rame yazma işlemi yapılır
     @Override
     public String execute(DataStore store) {
-        return store.set(message.getId(), message.getText());
+        return store.set(key, value.toStringUtf8());
     }
 }
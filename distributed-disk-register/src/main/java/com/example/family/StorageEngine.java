@@ -0,0 +1,175 @@
+package com.example.family;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import family.Codec;
+import family.StoredMessage;
+
+/**
+ * Follower'ın değerleri sakladığı depo. StorageServiceImpl sadece bu
+ * arayüzü kullanır; hangi uygulamanın çalışacağı ayardan seçilir.
+ *
+ * Değerler codec bayrağıyla birlikte, olduğu gibi (sıkıştırılmışsa
+ * sıkıştırılmış) saklanır. Aynı anahtara yazılan son değer geçerlidir.
+ *
+ * tolerance.conf ayarları:
+ *   STORAGE_ENGINE=log | file | memory
+ *     log     append-only segmentler + bellekte indeks ({@link LogStructuredStore})
+ *     file    anahtar başına bir dosya ({@link FileStorageEngine})
+ *     memory  sadece bellekte, kalıcı değil ({@link MemoryStorageEngine})
+ *
+ *   STORAGE_DURABILITY=none | sync | group
+ *     none    yazı işletim sistemine verilince başarılı (çökmede son yazılar gidebilir)
+ *     sync    her yazı force() ile diske indikten sonra başarılı
+ *     group   eşzamanlı yazılar tek force() ile diske iner ({@link GroupCommit});
+ *             her yazan kendi grubu diske inince başarılı olur
+ *   STORAGE_GROUP_COMMIT_MS=0          grubu doldurmak için ek bekleme (0 = yok: grup,
+ *                                      önceki force() sürerken gelen yazılardan oluşur)
+ *   STORAGE_GROUP_COMMIT_BYTES=1048576 bu kadar bayt birikince beklemeden force()
+ *   STORAGE_IMPORT_LEGACY=false        depo boşsa eski ortak messages/*.msg dosyaları
+ *                                      bir kez aktarılır; dizin bütün node'lara ortak
+ *                                      olduğu için sadece tek node'lu kurulumda açılmalı
+ * sync ve group modunda put/commit ancak değer diske inince döner ve değer
+ * ancak o zaman okunabilir olur; StoreResult.success dayanıklılık demektir.
+ * Toplu yazan (StoreBatch) putAll ile, akan yazan (Replicate) putAsync ile
+ * her değer için ayrı force() beklemekten kurtulur.
+ *
+ * Uygulamaların hepsi Tests/StorageEngineSuite'teki uyumluluk testlerini geçer;
+ * aynı program engine'leri karşılaştıran ölçümleri de verir.
+ */
+public interface StorageEngine extends Closeable {
+
+    /** put/commit başarılı dönmeden önce değerin diske inmesi beklenir mi. */
+    enum Durability {
+        NONE, SYNC, GROUP;
+
+        static Durability fromConfig() {
+            try {
+                return valueOf(ToleranceConfig.getString("STORAGE_DURABILITY", "none").trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid STORAGE_DURABILITY value in config, using default: none");
+                return NONE;
+            }
+        }
+    }
+
+    /** Parça parça yazılan büyük değer; commit edilene kadar okunmaz. */
+    interface ChunkedWrite {
+        void write(ByteString data) throws IOException;
+
+        void commit() throws IOException;
+
+        // Yazılanları at (hata / iptal); commit'ten sonra etkisiz
+        void abort();
+    }
+
+    /**
+     * Tek bir değeri baştan sona okur (chunked okuma). log ve memory engine
+     * açıldığı andaki değeri okur; file engine'de aynı anahtara arada
+     * yapılan put dosyayı yerinde değiştirir.
+     */
+    interface ValueReader extends Closeable {
+        Codec codec();
+
+        long size();
+
+        // dst'ye sığdığı kadarını okur; değer bittiyse -1
+        int read(ByteBuffer dst) throws IOException;
+
+        /**
+         * En fazla maxBytes'lık sonraki parça; değer bittiyse null. Engine
+         * destekliyorsa parça kopyalanmadan (ör. map'lenmiş bölgeden) döner.
+         */
+        default ByteString next(int maxBytes) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(maxBytes, Math.max(1, size())));
+            if (read(buffer) < 0) {
+                return null;
+            }
+            // Dizi sadece bu parçaya ait: kopyalamadan sar
+            return UnsafeByteOperations.unsafeWrap(buffer.array(), 0, buffer.position());
+        }
+
+        @Override
+        void close();
+    }
+
+    String name();
+
+    void put(int id, Codec codec, ByteString value) throws IOException;
+
+    /**
+     * Mesajların (id, codec, payload) hepsini yazar ve dayanıklılığı hepsi
+     * için bir kez bekler. Döndüğünde hepsi okunur; hata verirse hiçbiri
+     * başarılı sayılmaz (bir kısmı yine de yazılmış olabilir).
+     */
+    default void putAll(List<StoredMessage> messages) throws IOException {
+        for (StoredMessage message : messages) {
+            put(message.getId(), message.getCodec(), message.getPayload());
+        }
+    }
+
+    /**
+     * put'un beklemeyen hali: future, değer put'taki koşulla diske inip
+     * okunur olunca tamamlanır (hata da future'la gelir, bu metod atmaz).
+     * Future engine'in thread'inde tamamlanabilir; ona bağlanan iş kısa olmalı.
+     */
+    default CompletableFuture<Void> putAsync(int id, Codec codec, ByteString value) {
+        try {
+            put(id, codec, value);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Değer (codec bayrağıyla); yoksa null. */
+    StoredMessage get(int id) throws IOException;
+
+    /** Değerin bayt boyu; yoksa -1. */
+    long valueSize(int id) throws IOException;
+
+    ChunkedWrite beginChunked(int id, Codec codec, long totalSize) throws IOException;
+
+    /** Değer yoksa null. */
+    ValueReader openReader(int id) throws IOException;
+
+    /** Saklanan anahtar sayısı. */
+    int size();
+
+    /** Yeniden başlatınca değerler kalıyor mu. */
+    default boolean persistent() {
+        return true;
+    }
+
+    String statsReport();
+
+    static StorageEngine fromConfig(File dir) throws IOException {
+        String engine = ToleranceConfig.getString("STORAGE_ENGINE", "log");
+        return open(engine, dir, Durability.fromConfig());
+    }
+
+    static StorageEngine open(String engine, File dir) throws IOException {
+        return open(engine, dir, Durability.NONE);
+    }
+
+    static StorageEngine open(String engine, File dir, Durability durability) throws IOException {
+        if (engine.equalsIgnoreCase("file")) {
+            return new FileStorageEngine(dir, durability);
+        }
+        if (engine.equalsIgnoreCase("memory")) {
+            return new MemoryStorageEngine();
+        }
+        if (!engine.equalsIgnoreCase("log")) {
+            System.err.println("Invalid STORAGE_ENGINE value in config, using default: log");
+        }
+        return LogStructuredStore.open(dir, durability);
+    }
+}
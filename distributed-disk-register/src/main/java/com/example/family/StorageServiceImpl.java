@@ -1,23 +1,34 @@
 package com.example.family;
 
 import com.example.family.SetGetCommand.*;
+import family.Codec;
 import family.MessageId;
+import family.MessageIds;
+import family.ReplicationAck;
+import family.ReplicationFrame;
 import family.StorageServiceGrpc;
 import family.StoredMessage;
+import family.StoredMessages;
+import family.StoreBatchResult;
 import family.StoreResult;
+import family.ValueChunk;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-
-import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StorageServiceImpl extends StorageServiceGrpc.StorageServiceImplBase {
 
@@ -29,8 +40,53 @@ public class StorageServiceImpl extends StorageServiceGrpc.StorageServiceImplBas
     }
   }
 
-  // Servisimiz (Artık sadece disk kullanıyor)
-  public StorageServiceImpl() {
+  // Disk/bellek erişiminin tamamı engine'de (STORAGE_ENGINE ile seçilir)
+  private final StorageEngine store;
+
+  // dataDir bu node'a ait olmalı (aynı makinedeki node'lar ayrı dizin kullanır)
+  public StorageServiceImpl(File dataDir) {
+    this(openEngine(dataDir));
+  }
+
+  public StorageServiceImpl(StorageEngine engine) {
+    this.store = engine;
+    if (store.persistent() && store.size() == 0
+        && ToleranceConfig.getBoolean("STORAGE_IMPORT_LEGACY", false)) {
+      importLegacyFiles();
+    }
+    System.out.print("Storage (" + store.name() + "): " + store.statsReport());
+  }
+
+  private static StorageEngine openEngine(File dataDir) {
+    try {
+      return StorageEngine.fromConfig(dataDir);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open storage in " + dataDir, e);
+    }
+  }
+
+  // Eski düzen (messages/<id>.msg) varsa yeni depoya bir kez aktarılır
+  // (STORAGE_IMPORT_LEGACY). Eski düzende dizin node'a ait değildi: açıkken
+  // node, consistent hash'e göre sahibi olmadığı anahtarları da alır.
+  // Dosyalar silinmez (aynı dizini paylaşan başka node'lar olabilir)
+  private void importLegacyFiles() {
+    File[] files = MESSAGE_DIR.listFiles((dir, name) -> name.matches("-?\\d+\\.msg"));
+    if (files == null || files.length == 0) {
+      return;
+    }
+    int imported = 0;
+    for (File file : files) {
+      int id = Integer.parseInt(file.getName().substring(0, file.getName().length() - 4));
+      StoredMessage message = readLegacyFile(file, id);
+      if (message != null && writeMessageToDisk(id, message.getCodec(), message.getPayload())) {
+        imported++;
+      }
+    }
+    System.out.println("Imported " + imported + " legacy .msg files into the log store");
+  }
+
+  public String statsReport() {
+    return store.statsReport();
   }
 
   @Override
@@ -38,93 +94,348 @@ public class StorageServiceImpl extends StorageServiceGrpc.StorageServiceImplBas
     try {
       // 1. Gelen Protobuf mesajından verileri al
       int id = request.getId();
-      String value = request.getText();
+      String value = "<" + request.getCodec() + " " + PayloadCodec.encodedSize(request) + " B>";
 
       // 2. Memory'e kaydetme kısmını kaldırdık (Gereksiz RAM kullanımı)
       // dataStore.set(id, value);
 
-      // 3. Disk'e kaydet
-      writeMessageToDisk(id, value);
+      // 3. Disk'e kaydet (sıkıştırılmışsa codec bayrağıyla olduğu gibi)
+      boolean written = persist(request);
 
-      // 4. Sonucu hazırla (Başarılı)
-      StoreResult result = StoreResult.newBuilder().setSuccess(true).build();
+      // 4. Sonucu hazırla
+      StoreResult result = StoreResult.newBuilder().setSuccess(written).setId(id).build();
 
       // 5. Cevabı gönder ve işlemi kapat
       responseObserver.onNext(result);
       responseObserver.onCompleted();
 
-      System.out.println("GRPC ile veri kaydedildi (disk): " + id + " -> " + value);
+      Log.debug("GRPC ile veri kaydedildi (disk): %d -> %s", id, value);
     } catch (Exception e) {
-      System.err.println("Store operation failed: " + e.getMessage());
-      StoreResult result = StoreResult.newBuilder().setSuccess(false).build();
+      Log.error("Store operation failed: %s", e.getMessage());
+      StoreResult result = StoreResult.newBuilder().setSuccess(false).setId(request.getId()).build();
       responseObserver.onNext(result);
       responseObserver.onCompleted();
     }
   }
 
+  // Liderin micro-batcher'ı aynı follower'a giden SET'leri tek stream'de yollar.
+  // Batch stream bitince tek putAll ile yazılır: sync/group modunda mesaj başına
+  // ayrı force() yerine bir kez beklenir. Sonuçlar gönderim sırasıyla döner.
+  @Override
+  public StreamObserver<StoredMessage> storeBatch(StreamObserver<StoreBatchResult> responseObserver) {
+    List<StoredMessage> batch = new ArrayList<>();
+
+    return new StreamObserver<StoredMessage>() {
+      @Override
+      public void onNext(StoredMessage message) {
+        batch.add(normalize(message));
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        Log.warn("StoreBatch stream aborted: %s", t.getMessage());
+      }
+
+      @Override
+      public void onCompleted() {
+        boolean written;
+        try {
+          store.putAll(batch);
+          written = true;
+        } catch (Exception e) {
+          Log.error("Batch store failed for %d messages: %s", batch.size(), e.getMessage());
+          written = false;
+        }
+        StoreBatchResult.Builder results = StoreBatchResult.newBuilder();
+        for (StoredMessage message : batch) {
+          results.addResults(StoreResult.newBuilder().setSuccess(written).setId(message.getId()));
+        }
+        responseObserver.onNext(results.build());
+        responseObserver.onCompleted();
+        Log.debug("GRPC ile batch kaydedildi (disk): %d mesaj", results.getResultsCount());
+      }
+    };
+  }
+
+  // Lider başına son uygulanan seq. Yeniden bağlanan lider son ack'ten sonrasını
+  // tekrar gönderdiğinde zaten yazılmış frame'ler atlanır (idempotent).
+  private final Map<String, Long> lastAppliedSeq = new ConcurrentHashMap<>();
+  // Lider başına yazılamamış seq'ler: seq ilerlese de unutulmaz; aynı frame tekrar
+  // gelirse atlanmaz, yeniden yazılır (yine olmazsa yine failedSeqs'te bildirilir)
+  private final Map<String, Set<Long>> failedSeqs = new ConcurrentHashMap<>();
+
+  // Kalıcı replikasyon stream'i: frame'ler geldikçe diske yazılır ve kümülatif ack dönülür.
+  // Frame putAsync ile eklenir, diske inmesi beklenmeden sıradaki frame alınır:
+  // peş peşe gelen frame'ler tek force() paylaşır ve ack'leri o force()'tan sonra
+  // gider. Ack'ler frame sırasıyla zincirlenir (future'lar engine'in thread'inde
+  // bitebilir). Inbound flow control gRPC'de otomatik: onNext bitmeden yeni frame
+  // istenmez, yani disk yavaşlarsa HTTP/2 penceresi liderin isReady() durumunu düşürür.
+  @Override
+  public StreamObserver<ReplicationFrame> replicate(StreamObserver<ReplicationAck> responseObserver) {
+    return new StreamObserver<ReplicationFrame>() {
+      // Son gönderilen (ya da sırası gelince gönderilecek) ack; sadece onNext'ten değişir
+      private CompletableFuture<Void> acks = CompletableFuture.completedFuture(null);
+
+      @Override
+      public void onNext(ReplicationFrame frame) {
+        String source = frame.getSource();
+        long seq = frame.getSeq();
+        long applied = lastAppliedSeq.getOrDefault(source, 0L);
+        Set<Long> failed = failedSeqs.computeIfAbsent(source, s -> ConcurrentHashMap.newKeySet());
+
+        if (seq > applied || failed.contains(seq)) {
+          acks = acks.thenCombine(persistAsync(frame.getMessage()), (previous, written) -> {
+            ReplicationAck.Builder ack = ReplicationAck.newBuilder();
+            if (written) {
+              failed.remove(seq);
+            } else {
+              failed.add(seq);
+              ack.addFailedSeqs(seq);
+            }
+            ack.setAckedSeq(lastAppliedSeq.merge(source, seq, Math::max));
+            responseObserver.onNext(ack.build());
+            return null;
+          });
+        } else {
+          acks = acks.thenRun(() -> responseObserver.onNext(ReplicationAck.newBuilder()
+              .setAckedSeq(lastAppliedSeq.getOrDefault(source, 0L))
+              .build()));
+        }
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        Log.warn("Replication stream closed by leader: %s", t.getMessage());
+      }
+
+      @Override
+      public void onCompleted() {
+        // Bekleyen ack'ler gönderilsin, sonra kapat
+        acks.whenComplete((ignored, error) -> responseObserver.onCompleted());
+      }
+    };
+  }
+
+  // Büyük değer parça parça gelir; her parça geldiği anda engine'e yazılır,
+  // stream bitince commit edilir ve GET'ler ancak o zaman yeni değeri görür.
+  @Override
+  public StreamObserver<ValueChunk> storeChunked(StreamObserver<StoreResult> responseObserver) {
+    return new StreamObserver<ValueChunk>() {
+      private int id;
+      private StorageEngine.ChunkedWrite appender;
+      private boolean failed = false;
+
+      @Override
+      public void onNext(ValueChunk chunk) {
+        if (failed) {
+          return;
+        }
+        try {
+          if (appender == null) {
+            // Toplam boy ilk parçada bilinir (log engine o kadar yer ayırır)
+            id = chunk.getId();
+            appender = store.beginChunked(id, chunk.getCodec(), chunk.getTotalSize());
+          }
+          appender.write(chunk.getData());
+        } catch (IOException e) {
+          Log.error("Chunked store failed for %d: %s", id, e.getMessage());
+          failed = true;
+          if (appender != null) {
+            appender.abort();
+          }
+        }
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        Log.warn("Chunked store aborted for %d: %s", id, t.getMessage());
+        if (appender != null) {
+          appender.abort();
+        }
+      }
+
+      @Override
+      public void onCompleted() {
+        boolean success = false;
+        if (!failed && appender != null) {
+          try {
+            appender.commit();
+            success = true;
+            Log.debug("GRPC ile büyük veri kaydedildi (%s, chunked): %d", store.name(), id);
+          } catch (IOException e) {
+            Log.error("Chunked store commit failed for %d: %s", id, e.getMessage());
+            appender.abort();
+          }
+        }
+        responseObserver.onNext(StoreResult.newBuilder().setSuccess(success).setId(id).build());
+        responseObserver.onCompleted();
+      }
+    };
+  }
+
+  // Değeri CHUNK_SIZE'lık parçalar halinde okur ve client hazır oldukça gönderir;
+  // bellekte aynı anda tek bir parça tutulur.
+  @Override
+  public void retrieveChunked(MessageId request, StreamObserver<ValueChunk> responseObserver) {
+    int id = request.getId();
+    StorageEngine.ValueReader reader;
+    try {
+      reader = store.openReader(id);
+    } catch (IOException e) {
+      responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+      return;
+    }
+    if (reader == null) {
+      // Hiç parça yok = bulunamadı
+      responseObserver.onCompleted();
+      return;
+    }
+    // Codec bilgisi her parçayla birlikte gönderilir
+    Codec codec = reader.codec();
+    long size = reader.size();
+
+    ServerCallStreamObserver<ValueChunk> serverObserver = (ServerCallStreamObserver<ValueChunk>) responseObserver;
+    int chunkSize = ChunkedTransfer.chunkSize();
+
+    Runnable pump = new Runnable() {
+      private boolean done = false;
+
+      @Override
+      public synchronized void run() {
+        try {
+          while (!done && serverObserver.isReady()) {
+            // log engine'de parça map'lenmiş segmentin dilimi (kopya yok)
+            ByteString data = reader.next(chunkSize);
+            if (data == null) {
+              done = true;
+              reader.close();
+              serverObserver.onCompleted();
+              return;
+            }
+            serverObserver.onNext(ValueChunk.newBuilder()
+                .setId(id)
+                .setCodec(codec)
+                .setTotalSize(size)
+                .setData(data)
+                .build());
+          }
+        } catch (IOException e) {
+          done = true;
+          reader.close();
+          serverObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+      }
+    };
+    serverObserver.setOnCancelHandler(reader::close);
+    serverObserver.setOnReadyHandler(pump);
+    pump.run();
+  }
+
   @Override
   public void retrieve(MessageId request, StreamObserver<StoredMessage> responseObserver) {
     // 1. İstenen ID'yi al
     int id = request.getId();
 
-    // 2. Diskten oku
-    String foundValue = readMessageFromDisk(id);
+    // 2. Diskten oku (codec bayrağıyla; açma işi liderde)
+    StoredMessage response = lookup(id);
 
-    // 3. Bulunan değeri Protobuf mesajına paketle
-    if (foundValue == null) {
-      foundValue = "";
-    }
+    // 3. Cevabı gönder
+    responseObserver.onNext(response);
+    responseObserver.onCompleted();
 
-    StoredMessage response = StoredMessage.newBuilder()
-        .setId(request.getId())
-        .setText(foundValue)
-        .build();
+    Log.debug("GRPC ile veri okundu: %d -> <%s %d B>", id, response.getCodec(), PayloadCodec.encodedSize(response));
+  }
 
-    // 4. Cevabı gönder
-    responseObserver.onNext(response);
+  @Override
+  public void retrieveMany(MessageIds request, StreamObserver<StoredMessages> responseObserver) {
+    // MGET: lider bu node'a düşen tüm anahtarları tek çağrıda ister, cevap aynı sırada
+    StoredMessages.Builder response = StoredMessages.newBuilder();
+    long bytes = 0;
+    for (int id : request.getIdsList()) {
+      StoredMessage message = lookup(id);
+      bytes += PayloadCodec.encodedSize(message);
+      response.addMessages(message);
+    }
+    responseObserver.onNext(response.build());
     responseObserver.onCompleted();
 
-    System.out.println("GRPC ile veri okundu: " + id + " -> " + foundValue);
+    Log.debug("GRPC ile toplu veri okundu: %d anahtar, %d B", request.getIdsCount(), bytes);
   }
 
-  // ZERO-COPY (Memory Mapped File) Yöntemi
-private void writeMessageToDisk(int id, String msg) {
-    File file = new File(MESSAGE_DIR, id + ".msg");
-    
-    // 1. String veriyi byte dizisine çevir (Maliyetli ama zorunlu adım)
-    byte[] data = msg.getBytes(StandardCharsets.UTF_8);
+  // Tek anahtar için Retrieve cevabı: bulunamadıysa boş mesaj,
+  // büyükse chunked=true (lider RetrieveChunked ile çekecek)
+  private StoredMessage lookup(int id) {
+    if (valueSize(id) >= ChunkedTransfer.threshold()) {
+      return StoredMessage.newBuilder().setId(id).setChunked(true).build();
+    }
+
+    StoredMessage response = readMessageFromDisk(id);
+    if (response == null) {
+      response = StoredMessage.newBuilder().setId(id).setText("").build();
+    }
+    return response;
+  }
 
-    // 2. RandomAccessFile ve FileChannel aç
-    // "rw" modu: Hem okuma hem yazma izni verir (Map işlemi için gereklidir)
-    try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
-         FileChannel channel = raf.getChannel()) {
+  private boolean persist(StoredMessage message) {
+    StoredMessage normalized = normalize(message);
+    return writeMessageToDisk(normalized.getId(), normalized.getCodec(), normalized.getPayload());
+  }
 
-        // 3. Dosyayı hafızaya haritala (Mapping)
-        // FileChannel.MapMode.READ_WRITE: Hem okuyup hem yazacağız
-        // 0: Başlangıç pozisyonu
-        // data.length: Dosyanın boyutu (byte dizisi kadar yer açar)
-        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, data.length);
+  // persist'in beklemeyen hali: yazılıp diske inince true, hata olursa false
+  private CompletableFuture<Boolean> persistAsync(StoredMessage message) {
+    StoredMessage normalized = normalize(message);
+    return store.putAsync(normalized.getId(), normalized.getCodec(), normalized.getPayload())
+        .handle((ignored, error) -> {
+          if (error != null) {
+            Log.error("Storage yazma hatası: %s", error.getMessage());
+            return false;
+          }
+          return true;
+        });
+  }
 
-        // 4. Veriyi direkt olarak haritalanmış hafıza alanına koy
-        // Bu işlem işletim sistemi seviyesinde diske asenkron olarak yansıtılır.
-        buffer.put(data);
+  // Eski istemciler değeri text alanında gönderebilir: engine'e hep payload gider
+  private static StoredMessage normalize(StoredMessage message) {
+    if (message.getPayload().isEmpty() && !message.getText().isEmpty()) {
+      return message.toBuilder().clearText().setPayload(ByteString.copyFromUtf8(message.getText())).build();
+    }
+    return message;
+  }
 
+  private boolean writeMessageToDisk(int id, Codec codec, ByteString data) {
+    try {
+      store.put(id, codec, data);
+      return true;
     } catch (IOException e) {
-        System.err.println("Zero-Copy yazma hatası: " + e.getMessage());
+      Log.error("Storage yazma hatası: %s", e.getMessage());
+      return false;
     }
-}
+  }
 
-  private String readMessageFromDisk(int id) {
-    File file = new File(MESSAGE_DIR, id + ".msg");
-    if (!file.exists()) {
+  private StoredMessage readMessageFromDisk(int id) {
+    try {
+      return store.get(id);
+    } catch (IOException e) {
+      Log.error("Failed to read message from disk: %s", e.getMessage());
       return null;
     }
+  }
 
-    try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-      return br.readLine();
+  private long valueSize(int id) {
+    try {
+      return store.valueSize(id);
     } catch (IOException e) {
-      System.err.println("Failed to read message from disk: " + e.getMessage());
+      return -1;
+    }
+  }
+
+  // Eski düzendeki dosya (FileStorageEngine ile aynı kayıt biçimi)
+  private static StoredMessage readLegacyFile(File file, int id) {
+    try {
+      return FileStorageEngine.parse(id, Files.readAllBytes(file.toPath()));
+    } catch (IOException e) {
+      Log.error("Failed to read legacy file %s: %s", file.getName(), e.getMessage());
       return null;
     }
   }
-}
\ No newline at end of file
+}
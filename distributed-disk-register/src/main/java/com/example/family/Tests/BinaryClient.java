@@ -0,0 +1,85 @@
+package com.example.family.Tests;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import com.example.family.BinaryProtocol;
+import com.example.family.BinaryProtocol.Response;
+import com.google.protobuf.ByteString;
+
+/**
+ * Liderin ikili protokol portu (varsayılan 6667) için basit istemci.
+ * Değerler ham bayt olarak gider; içinde boşluk veya '\n' olabilir.
+ *
+ * Usage: BinaryClient [host] [port] [messageCount]
+ */
+public class BinaryClient implements Closeable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public BinaryClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+    }
+
+    public Response set(int key, ByteString value) throws IOException {
+        return call(BinaryProtocol.OP_SET, key, value);
+    }
+
+    public Response get(int key) throws IOException {
+        return call(BinaryProtocol.OP_GET, key, ByteString.EMPTY);
+    }
+
+    public Response stats() throws IOException {
+        return call(BinaryProtocol.OP_STATS, 0, ByteString.EMPTY);
+    }
+
+    private Response call(byte opcode, int key, ByteString value) throws IOException {
+        BinaryProtocol.writeRequest(out, opcode, key, value);
+        out.flush();
+        return BinaryProtocol.readResponse(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6667;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        System.out.println("Binary test başlıyor: " + count + " adet SET + GET gönderilecek...");
+        try (BinaryClient client = new BinaryClient(host, port)) {
+            long startTime = System.currentTimeMillis();
+            int mismatches = 0;
+            for (int i = 0; i < count; i++) {
+                // Metin protokolünde gönderilemeyen değer: boşluk ve satır sonu içerir
+                ByteString value = ByteString.copyFromUtf8("Mesaj " + i + "\nikinci satır");
+                Response stored = client.set(i, value);
+                Response read = client.get(i);
+                if (read.status != BinaryProtocol.STATUS_OK || !read.payload.equals(value)) {
+                    mismatches++;
+                }
+                if (i % 100 == 0) {
+                    System.out.println("Gönderildi: " + i + " -> Cevap: " + stored.payloadText());
+                }
+            }
+            long endTime = System.currentTimeMillis();
+            System.out.println("Test Bitti! Uyuşmayan GET: " + mismatches);
+            System.out.println("Geçen Süre: " + (endTime - startTime) + " ms");
+        } catch (IOException e) {
+            System.err.println("Bağlantı hatası: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.family.Tests;
+
+import java.util.Arrays;
+
+import com.example.family.ChannelPool;
+import com.example.family.FamilyServiceImpl;
+import com.example.family.NodeRegistry;
+
+import family.Empty;
+import family.FamilyServiceGrpc;
+import family.NodeInfo;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+
+/**
+ * Per-call channel vs pooled channel benchmark.
+ *
+ * Starts a local FamilyService on an ephemeral port and issues GetFamily
+ * calls the two ways NodeMain has used:
+ *   - per-call: build a ManagedChannel, call, shutdownNow (old behaviour)
+ *   - pooled:   reuse the channel from ChannelPool (current behaviour)
+ *
+ * Usage: ChannelPoolBenchmark [calls]
+ */
+public class ChannelPoolBenchmark {
+
+    private static final int DEFAULT_CALLS = 2_000;
+    private static final int WARMUP_CALLS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CALLS;
+
+        NodeInfo self = NodeInfo.newBuilder().setHost("127.0.0.1").setPort(0).build();
+        Server server = ServerBuilder.forPort(0)
+                .addService(new FamilyServiceImpl(new NodeRegistry(), self))
+                .build()
+                .start();
+        int port = server.getPort();
+
+        System.out.println("=== CHANNEL POOL BENCHMARK ===");
+        System.out.println("Target: 127.0.0.1:" + port + " | calls=" + calls);
+
+        ChannelPool pool = new ChannelPool();
+        try {
+            // JIT ısınması (her iki yol için)
+            runPerCall(port, WARMUP_CALLS);
+            runPooled(pool, port, WARMUP_CALLS);
+
+            long[] perCall = runPerCall(port, calls);
+            long[] pooled = runPooled(pool, port, calls);
+
+            report("per-call channel", perCall);
+            report("pooled channel", pooled);
+
+            double speedup = (double) sum(perCall) / Math.max(1, sum(pooled));
+            System.out.printf("Speedup (total time): %.1fx%n", speedup);
+        } finally {
+            pool.shutdownAll();
+            server.shutdownNow();
+        }
+    }
+
+    private static long[] runPerCall(int port, int calls) {
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            ManagedChannel channel = ManagedChannelBuilder
+                    .forAddress("127.0.0.1", port)
+                    .usePlaintext()
+                    .build();
+            try {
+                FamilyServiceGrpc.newBlockingStub(channel).getFamily(Empty.getDefaultInstance());
+            } finally {
+                channel.shutdownNow();
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static long[] runPooled(ChannelPool pool, int port, int calls) {
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            FamilyServiceGrpc.newBlockingStub(pool.get("127.0.0.1", port))
+                    .getFamily(Empty.getDefaultInstance());
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        long total = sum(sorted);
+        System.out.printf("%-17s | avg=%.3f ms p50=%.3f ms p99=%.3f ms | %.0f ops/s%n",
+                name,
+                total / (double) sorted.length / 1_000_000.0,
+                sorted[sorted.length / 2] / 1_000_000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1_000_000.0,
+                sorted.length / (total / 1_000_000_000.0));
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long v : values) {
+            total += v;
+        }
+        return total;
+    }
+}
@@ -10,15 +10,25 @@ import java.util.concurrent.Executors;
 
 public class ConcurrencyTest {
 
-    private static final int CLIENT_COUNT = 3;       // 3 İstemci
-    private static final int MSG_PER_CLIENT = 1000;  // Her biri 3000 mesaj (Top: 9000)
+    private static int CLIENT_COUNT = 3;       // 3 İstemci (args[0] ile değiştirilebilir)
+    private static int MSG_PER_CLIENT = 1000;  // Her biri 1000 mesaj (args[1] ile değiştirilebilir)
+    private static int PIPELINE_DEPTH = 1;     // Cevap beklemeden gönderilen komut sayısı (args[2])
     private static final String HOST = "127.0.0.1";
     private static final int PORT = 6666;
 
+    // Kullanım: ConcurrencyTest [clientCount] [msgPerClient] [pipelineDepth]
+    // REPLICATION_MODE=unary ve REPLICATION_MODE=batch ile ayrı ayrı çalıştırıp
+    // throughput karşılaştırılabilir. pipelineDepth > 1 ise her istemci o kadar
+    // komutu cevap beklemeden gönderir (sunucuda TEXT_PIPELINE_DEPTH ile birlikte).
     public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0) CLIENT_COUNT = Integer.parseInt(args[0]);
+        if (args.length > 1) MSG_PER_CLIENT = Integer.parseInt(args[1]);
+        if (args.length > 2) PIPELINE_DEPTH = Math.max(1, Integer.parseInt(args[2]));
+
         System.out.println("=== EŞ ZAMANLI YÜK TESTİ BAŞLIYOR ===");
         System.out.println("İstemci Sayısı: " + CLIENT_COUNT);
         System.out.println("Toplam Mesaj: " + (CLIENT_COUNT * MSG_PER_CLIENT));
+        System.out.println("Pipeline Derinliği: " + PIPELINE_DEPTH);
 
         // İş parçacığı havuzu oluştur
         ExecutorService executor = Executors.newFixedThreadPool(CLIENT_COUNT);
@@ -48,11 +58,13 @@ public class ConcurrencyTest {
         long end = System.currentTimeMillis();
         System.out.println("\n=== TEST TAMAMLANDI ===");
         System.out.println("Toplam Süre: " + (end - start) + " ms");
+        System.out.printf("Throughput: %.0f SET/s%n",
+                CLIENT_COUNT * MSG_PER_CLIENT / Math.max(0.001, (end - start) / 1000.0));
     }
 
     private static void runClient(int clientId) {
         try (Socket socket = new Socket(HOST, PORT);
-             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), false);
              BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
 
             int startId = clientId * MSG_PER_CLIENT; // Örn: Client 0 -> 0-2999 arası
@@ -60,10 +72,15 @@ public class ConcurrencyTest {
 
             System.out.println("Client-" + clientId + " bağlandı. ID Aralığı: " + startId + " - " + endId);
 
+            // En fazla PIPELINE_DEPTH komut cevapsız bekleyebilir; cevaplar sırayla gelir
+            int next = startId;
             for (int i = startId; i < endId; i++) {
-                String cmd = "SET " + i + " Client_" + clientId + "_Verisi_" + i;
-                out.println(cmd);
-                
+                while (next < endId && next - i < PIPELINE_DEPTH) {
+                    out.print("SET " + next + " Client_" + clientId + "_Verisi_" + next + "\n");
+                    next++;
+                }
+                out.flush();
+
                 String resp = in.readLine();
                 if (resp == null || !resp.startsWith("OK")) {
                     System.err.println("HATA Client-" + clientId + " Msg-" + i + ": " + resp);
@@ -0,0 +1,127 @@
+package com.example.family.Tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.example.family.StorageEngine;
+import com.example.family.StorageEngine.Durability;
+import com.example.family.ToleranceConfig;
+import com.google.protobuf.ByteString;
+
+import family.Codec;
+
+/**
+ * Measures what each STORAGE_DURABILITY mode costs on the put path.
+ *
+ * For every mode (none, sync, group) and every writer count, that many
+ * threads put valueBytes values into a fresh store as fast as they can for
+ * the given number of seconds. Each put returns only once the mode's
+ * durability guarantee holds, so ops/s and the latency percentiles are what
+ * a Store caller sees before it is acknowledged. The group row also shows
+ * how many writes shared one force() (STORAGE_GROUP_COMMIT_MS and
+ * STORAGE_GROUP_COMMIT_BYTES come from tolerance.conf).
+ *
+ * Usage: DurabilityBenchmark [seconds] [valueBytes] [writers, e.g. 1,8,64] [engine: log|file]
+ */
+public class DurabilityBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int valueBytes = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int[] writers = Arrays.stream((args.length > 2 ? args[2] : "1,8,64").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        String engine = args.length > 3 ? args[3] : "log";
+        ToleranceConfig.loadConfig();
+
+        byte[] data = new byte[valueBytes];
+        new Random(1).nextBytes(data);
+        ByteString value = ByteString.copyFrom(data);
+
+        System.out.printf("engine=%s value=%d B duration=%ds cores=%d%n",
+                engine, valueBytes, seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-6s | %7s | %10s | %9s | %9s | %9s%n",
+                "mode", "writers", "puts/s", "p50", "p99", "p99.9");
+        for (Durability durability : Durability.values()) {
+            for (int threads : writers) {
+                run(engine, durability, threads, seconds, value);
+            }
+        }
+    }
+
+    private static void run(String name, Durability durability, int threads, int seconds, ByteString value)
+            throws Exception {
+        File dir = Files.createTempDirectory("durability-" + durability).toFile();
+        StorageEngine engine = StorageEngine.open(name, dir, durability);
+
+        List<long[]> latencies = new ArrayList<>();
+        int[] counts = new int[threads];
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int writer = t;
+            long[] own = new long[1 << 16];
+            latencies.add(own);
+            new Thread(() -> {
+                long[] samples = own;
+                int n = 0;
+                try {
+                    // Her writer kendi anahtar aralığına yazar
+                    for (int id = writer * 10_000_000; System.nanoTime() < deadline; id++) {
+                        long begin = System.nanoTime();
+                        engine.put(id, Codec.NONE, value);
+                        if (n == samples.length) {
+                            samples = Arrays.copyOf(samples, n * 2);
+                        }
+                        samples[n++] = System.nanoTime() - begin;
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+                // done.await() görünürlüğü sağlar
+                latencies.set(writer, samples);
+                counts[writer] = n;
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+        if (error.get() != null) {
+            throw new IllegalStateException(error.get());
+        }
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int position = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies.get(t), 0, all, position, counts[t]);
+            position += counts[t];
+        }
+        Arrays.sort(all);
+        System.out.printf("%-6s | %7d | %10.0f | %7.1fus | %7.1fus | %7.1fus%n",
+                durability.name().toLowerCase(), threads, total / elapsed,
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999));
+        if (durability == Durability.GROUP) {
+            for (String line : engine.statsReport().split("\n")) {
+                if (line.contains("Group commit")) {
+                    System.out.println("         " + line.substring(line.indexOf("Group commit")).trim());
+                }
+            }
+        }
+        engine.close();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1000.0;
+    }
+}
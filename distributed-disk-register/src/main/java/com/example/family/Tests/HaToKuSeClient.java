@@ -9,6 +9,10 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * HaToKuSe TCP Client (text protocol)
@@ -19,6 +23,11 @@ import java.util.Random;
  * Protocol examples:
  *   SET 34 ISTANBUL\n
  *   GET 34\n
+ *
+ * With --pipeline=N (N > 1) up to N requests are kept in flight on the
+ * connection: a sender thread writes requests, a receiver thread matches
+ * responses in order (the server answers in request order). RTT is then
+ * measured from when the request was written to when its response arrived.
  */
 public class HaToKuSeClient {
 
@@ -36,6 +45,7 @@ public class HaToKuSeClient {
         double setRatio = 0.80;      // 0..1
         int keySpace = 10_000;       // keys 0..keySpace-1
         int sleepMsBetweenOps = 0;   // pacing
+        int pipelineDepth = 1;       // requests in flight per connection
 
         // Payload sizes
         int minPayloadBytes = 5;     // for SET
@@ -65,13 +75,18 @@ public class HaToKuSeClient {
                 cfg.host, cfg.port, cfg.durationMinutes, cfg.setRatio, cfg.keySpace);
         System.out.printf("Payload: min=%dB max=%dB | large=%dB every %d SETs%n",
                 cfg.minPayloadBytes, cfg.maxPayloadBytes, cfg.largePayloadBytes, cfg.largeEveryN);
-        System.out.printf("CSV: %s%n", cfg.csvPath);
+        System.out.printf("CSV: %s | pipeline=%d%n", cfg.csvPath, cfg.pipelineDepth);
 
         // CSV header
         try (PrintWriter csv = new PrintWriter(new OutputStreamWriter(new FileOutputStream(cfg.csvPath, false), StandardCharsets.UTF_8))) {
             csv.println("ts,op,key,payload_bytes,ok,rtt_ms,response");
         }
 
+        if (cfg.pipelineDepth > 1) {
+            runPipelined(cfg, endAt, rnd);
+            return;
+        }
+
         long opCount = 0;
         long setCount = 0;
         long okCount = 0;
@@ -184,6 +199,136 @@ public class HaToKuSeClient {
         System.out.printf("CSV written: %s%n", cfg.csvPath);
     }
 
+    /** One request written to the connection and still waiting for its response. */
+    private static final class InFlight {
+        final String ts;
+        final String op;
+        final int key;
+        final int payloadBytes;
+        final long startNs;
+
+        InFlight(String ts, String op, int key, int payloadBytes, long startNs) {
+            this.ts = ts;
+            this.op = op;
+            this.key = key;
+            this.payloadBytes = payloadBytes;
+            this.startNs = startNs;
+        }
+    }
+
+    private static void runPipelined(Config cfg, long endAt, Random rnd) throws Exception {
+        long opCount = 0;
+        long setCount = 0;
+        AtomicLong okCount = new AtomicLong();
+        AtomicLong errCount = new AtomicLong();
+        AtomicLong rttSum = new AtomicLong();
+        AtomicLong rttMax = new AtomicLong();
+        long startNs = System.nanoTime();
+
+        while (System.nanoTime() < endAt) {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(cfg.host, cfg.port), cfg.connectTimeoutMs);
+            socket.setSoTimeout(cfg.readTimeoutMs);
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            Semaphore slots = new Semaphore(cfg.pipelineDepth);
+            ConcurrentLinkedQueue<InFlight> inFlight = new ConcurrentLinkedQueue<>();
+            AtomicBoolean failed = new AtomicBoolean(false);
+
+            // Receiver: responses come back in request order
+            Thread receiver = new Thread(() -> {
+                try {
+                    String response;
+                    while ((response = in.readLine()) != null) {
+                        InFlight req = inFlight.poll();
+                        if (req == null) {
+                            continue;
+                        }
+                        long rttMs = (System.nanoTime() - req.startNs) / 1_000_000L;
+                        boolean ok = response.startsWith("OK");
+                        (ok ? okCount : errCount).incrementAndGet();
+                        rttSum.addAndGet(rttMs);
+                        rttMax.accumulateAndGet(rttMs, Math::max);
+                        appendCsv(cfg.csvPath, req.ts, req.op, req.key, req.payloadBytes, ok, rttMs, response);
+                        slots.release();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Receiver error: " + e.getMessage());
+                } finally {
+                    failed.set(true);
+                    slots.release(cfg.pipelineDepth); // unblock sender
+                }
+            }, "pipeline-receiver");
+            receiver.start();
+
+            try {
+                while (System.nanoTime() < endAt && !failed.get()) {
+                    slots.acquire();
+                    if (failed.get()) {
+                        break;
+                    }
+                    opCount++;
+                    boolean doSet = rnd.nextDouble() < cfg.setRatio;
+                    int key = rnd.nextInt(Math.max(1, cfg.keySpace));
+                    String request;
+                    int payloadBytes = 0;
+                    if (doSet) {
+                        setCount++;
+                        boolean isLarge = (cfg.largeEveryN > 0) && (setCount % cfg.largeEveryN == 0);
+                        payloadBytes = isLarge
+                                ? cfg.largePayloadBytes
+                                : randomBetween(rnd, cfg.minPayloadBytes, cfg.maxPayloadBytes);
+                        request = "SET " + key + " " + randomAscii(rnd, payloadBytes);
+                    } else {
+                        request = "GET " + key;
+                    }
+
+                    inFlight.add(new InFlight(TS_FMT.format(Instant.now()), doSet ? "SET" : "GET",
+                            key, payloadBytes, System.nanoTime()));
+                    out.write(request);
+                    out.write("\n");
+                    // Flush only when the window is full or there is nothing else to send right now
+                    if (slots.availablePermits() == 0 || cfg.sleepMsBetweenOps > 0) {
+                        out.flush();
+                    }
+                    if (cfg.sleepMsBetweenOps > 0) {
+                        Thread.sleep(cfg.sleepMsBetweenOps);
+                    }
+                    if (opCount % 1000 == 0) {
+                        long done = okCount.get() + errCount.get();
+                        System.out.printf("ops=%d (SET=%d) OK=%d ERROR=%d | rtt(ms) avg=%d max=%d%n",
+                                opCount, setCount, okCount.get(), errCount.get(),
+                                done == 0 ? 0 : rttSum.get() / done, rttMax.get());
+                    }
+                }
+                out.flush();
+                // Wait for outstanding responses
+                socket.shutdownOutput();
+            } catch (IOException e) {
+                System.err.println("Sender error: " + e.getMessage());
+            }
+            receiver.join();
+            errCount.addAndGet(inFlight.size()); // never answered
+            socket.close();
+
+            if (System.nanoTime() < endAt) {
+                if (!cfg.reconnectOnFailure) {
+                    break;
+                }
+                Thread.sleep(cfg.reconnectBackoffMs);
+            }
+        }
+
+        long total = okCount.get() + errCount.get();
+        double seconds = (System.nanoTime() - startNs) / 1_000_000_000.0;
+        System.out.println("\nDone.");
+        System.out.printf("Total ops=%d | SET=%d | OK=%d | ERROR=%d | %.0f ops/s%n",
+                opCount, setCount, okCount.get(), errCount.get(), total / seconds);
+        System.out.printf("RTT(ms): avg=%d max=%d%n", total == 0 ? 0 : rttSum.get() / total, rttMax.get());
+        System.out.printf("CSV written: %s%n", cfg.csvPath);
+    }
+
     private static void appendCsv(String csvPath, String ts, String op, int key, int payloadBytes,
                                   boolean ok, long rttMs, String response) {
         // Append per line (simple + safe). If you want max throughput, keep an open writer.
@@ -282,6 +427,7 @@ public class HaToKuSeClient {
             else if (a.startsWith("--setRatio=")) c.setRatio = Double.parseDouble(a.substring("--setRatio=".length()));
             else if (a.startsWith("--keySpace=")) c.keySpace = Integer.parseInt(a.substring("--keySpace=".length()));
             else if (a.startsWith("--sleepMs=")) c.sleepMsBetweenOps = Integer.parseInt(a.substring("--sleepMs=".length()));
+            else if (a.startsWith("--pipeline=")) c.pipelineDepth = Integer.parseInt(a.substring("--pipeline=".length()));
             else if (a.startsWith("--minPayloadBytes=")) c.minPayloadBytes = Integer.parseInt(a.substring("--minPayloadBytes=".length()));
             else if (a.startsWith("--maxPayloadBytes=")) c.maxPayloadBytes = Integer.parseInt(a.substring("--maxPayloadBytes=".length()));
             else if (a.startsWith("--largePayloadBytes=")) c.largePayloadBytes = Integer.parseInt(a.substring("--largePayloadBytes=".length()));
@@ -298,6 +444,7 @@ public class HaToKuSeClient {
         if (c.setRatio > 1) c.setRatio = 1;
         if (c.durationMinutes < 1) c.durationMinutes = 1;
         if (c.keySpace < 1) c.keySpace = 1;
+        if (c.pipelineDepth < 1) c.pipelineDepth = 1;
         return c;
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.example.family.Tests;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.family.OffHeapIndex;
+
+/**
+ * Compares the log store's old index (ConcurrentHashMap&lt;Integer, Location&gt;)
+ * with OffHeapIndex at a realistic key count.
+ *
+ * For each index, keys 0..keys-1 are inserted by one writer (measuring
+ * build rate and the worst single insert, which includes any resize), then
+ * heap and direct memory per key are measured after a full GC, and the
+ * duration of that full GC with the index live shows what the collector
+ * pays for it. Finally reader threads do random lookups for the given
+ * number of seconds while one writer keeps updating existing keys and
+ * inserting new ones (forcing resizes); lookups per second, writer ops per
+ * second, GC time and the worst writer stall are reported.
+ *
+ * Run with enough heap for the map baseline (about 100 B per key), e.g.
+ * -Xmx3g for 20M keys.
+ *
+ * Usage: IndexBenchmark [keys] [readers] [seconds]
+ */
+public class IndexBenchmark {
+
+    // LogStructuredStore.Location ile aynı alanlar
+    private static final class Location {
+        final int segment;
+        final long offset;
+        final int length;
+
+        Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private interface Index {
+        void put(int key, int segment, long offset, int length);
+
+        // Bulunduysa boy, yoksa -1
+        int lengthOf(int key);
+
+        int size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        System.out.printf("keys=%d readers=%d duration=%ds cores=%d max heap=%d MB%n", keys, readers, seconds,
+                Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() >> 20);
+
+        // Önce map: heap'teki çöpü sonraki ölçümden önce GC toplar
+        runMap(keys, readers, seconds);
+        runOffHeap(keys, readers, seconds);
+    }
+
+    private static void runMap(int keys, int readers, int seconds) throws Exception {
+        Map<Integer, Location> map = new ConcurrentHashMap<>();
+        run("map", new Index() {
+            @Override
+            public void put(int key, int segment, long offset, int length) {
+                map.put(key, new Location(segment, offset, length));
+            }
+
+            @Override
+            public int lengthOf(int key) {
+                Location location = map.get(key);
+                return location == null ? -1 : location.length;
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        }, keys, readers, seconds);
+    }
+
+    private static void runOffHeap(int keys, int readers, int seconds) throws Exception {
+        OffHeapIndex offHeap = new OffHeapIndex();
+        run("off-heap", new Index() {
+            @Override
+            public void put(int key, int segment, long offset, int length) {
+                offHeap.put(key, OffHeapIndex.pack(segment, offset, length));
+            }
+
+            @Override
+            public int lengthOf(int key) {
+                long packed = offHeap.get(key);
+                return packed == OffHeapIndex.MISSING ? -1 : OffHeapIndex.length(packed);
+            }
+
+            @Override
+            public int size() {
+                return offHeap.size();
+            }
+        }, keys, readers, seconds);
+        System.out.print("           " + offHeap.statsReport());
+    }
+
+    private static void run(String name, Index index, int keys, int readers, int seconds) throws Exception {
+        long heapBefore = usedHeap();
+        long directBefore = settledDirect();
+
+        long maxInsert = 0;
+        long start = System.nanoTime();
+        for (int key = 0; key < keys; key++) {
+            long begin = System.nanoTime();
+            index.put(key, 1 + key / 500_000, (key % 500_000) * 128L, 100);
+            maxInsert = Math.max(maxInsert, System.nanoTime() - begin);
+        }
+        double buildSeconds = (System.nanoTime() - start) / 1e9;
+
+        long gcStart = System.nanoTime();
+        long heapAfter = usedHeap();
+        double fullGcMillis = (System.nanoTime() - gcStart) / 1e6 / 3; // usedHeap 3 kez GC yapar
+        long heap = heapAfter - heapBefore;
+        long direct = settledDirect() - directBefore;
+        System.out.printf("%-8s | build %.1fM inserts/s, worst insert %.1f ms | heap %.1f B/key | direct %.1f B/key"
+                + " | full GC with index live: %.0f ms%n",
+                name, keys / buildSeconds / 1e6, maxInsert / 1e6,
+                heap / (double) keys, direct / (double) keys, fullGcMillis);
+
+        // Okuyanlar rastgele anahtar ararken bir yazan güncelleyip yeni anahtar ekler
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong lookups = new AtomicLong();
+        AtomicLong misses = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(readers);
+        long gcBefore = gcMillis();
+        for (int r = 0; r < readers; r++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long n = 0;
+                long missing = 0;
+                while (running.get()) {
+                    for (int i = 0; i < 1024; i++) {
+                        if (index.lengthOf(random.nextInt(keys)) < 0) {
+                            missing++;
+                        }
+                    }
+                    n += 1024;
+                }
+                lookups.addAndGet(n);
+                misses.addAndGet(missing);
+                done.countDown();
+            }).start();
+        }
+        long writes = 0;
+        long maxWrite = 0;
+        int next = keys;
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        start = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            long begin = System.nanoTime();
+            // Yarısı güncelleme, yarısı yeni anahtar (büyütmeleri tetikler)
+            int key = (writes & 1) == 0 ? ThreadLocalRandom.current().nextInt(keys) : next++;
+            index.put(key, 2, writes * 128L % (1L << 30), 100);
+            maxWrite = Math.max(maxWrite, System.nanoTime() - begin);
+            writes++;
+        }
+        running.set(false);
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-8s | lookups %.1fM/s (missing %d) | writes %.0fk/s, worst write %.1f ms | GC %d ms"
+                + " | size %d%n",
+                name, lookups.get() / elapsed / 1e6, misses.get(), writes / elapsed / 1e3, maxWrite / 1e6,
+                gcMillis() - gcBefore, index.size());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Büyütmede bırakılan tablolar GC sonrası Cleaner ile serbest kalır; sayı oturana kadar bekle
+    private static long settledDirect() throws InterruptedException {
+        long previous = -1;
+        long current = usedDirect();
+        for (int i = 0; i < 20 && current != previous; i++) {
+            System.gc();
+            Thread.sleep(50);
+            previous = current;
+            current = usedDirect();
+        }
+        return current;
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
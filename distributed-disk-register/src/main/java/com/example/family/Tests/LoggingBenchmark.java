@@ -0,0 +1,105 @@
+package com.example.family.Tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+
+import com.example.family.Log;
+import com.google.protobuf.ByteString;
+
+/**
+ * Cost of request-path logging: synchronous System.out vs the Log facade.
+ *
+ * Each simulated SET logs what the old request path printed: the received
+ * command line with the full value, one "Replicated" line per replica and
+ * the follower's "stored" line. stdout/stderr are redirected to a temp file
+ * so the console speed does not dominate.
+ *
+ * Cases:
+ *   System.out        synchronous println, full value (old behaviour)
+ *   Log DEBUG         every line through the async queue, values truncated
+ *   Log INFO          request-path lines are DEBUG, so they are filtered
+ *
+ * Usage: LoggingBenchmark [opsPerThread] [threads] [valueBytes]
+ */
+public class LoggingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int valueBytes = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+
+        byte[] raw = new byte[valueBytes];
+        java.util.Arrays.fill(raw, (byte) 'v');
+        ByteString value = ByteString.copyFrom(raw);
+        String line = "SET 42 " + value.toStringUtf8();
+
+        PrintStream console = System.out;
+        File sink = File.createTempFile("logging-bench", ".log");
+        sink.deleteOnExit();
+        PrintStream redirected = new PrintStream(new FileOutputStream(sink), true);
+
+        console.println("=== LOGGING BENCHMARK ===");
+        console.printf("threads=%d ops/thread=%d value=%d B%n", threads, ops, valueBytes);
+        console.printf("%-12s | %12s | %14s%n", "case", "ops/s", "log file bytes");
+
+        for (int round = 0; round < 2; round++) {
+            // İlk tur ısınma
+            boolean report = round == 1;
+            System.setOut(redirected);
+            System.setErr(redirected);
+            run(console, report, "System.out", threads, ops, () -> {
+                System.out.println(" Received from TCP: " + line);
+                for (int r = 0; r < 2; r++) {
+                    System.out.printf("Replicated msg %d to %s:%d (LoadBalanced)%n", 42, "10.0.0.2", 5556 + r);
+                }
+                System.out.println("GRPC ile veri kaydedildi (disk): " + 42 + " -> " + value.toStringUtf8());
+            }, sink);
+
+            Log.setLevel(Log.Level.DEBUG);
+            run(console, report, "Log DEBUG", threads, ops, () -> {
+                Log.debug(" Received from TCP: %s", line);
+                for (int r = 0; r < 2; r++) {
+                    Log.debug("Replicated msg %d to %s:%d (LoadBalanced)", 42, "10.0.0.2", 5556 + r);
+                }
+                Log.debug("GRPC ile veri kaydedildi (disk): %d -> %s", 42, value);
+            }, sink);
+
+            Log.setLevel(Log.Level.INFO);
+            run(console, report, "Log INFO", threads, ops, () -> {
+                Log.debug(" Received from TCP: %s", line);
+                for (int r = 0; r < 2; r++) {
+                    Log.debug("Replicated msg %d to %s:%d (LoadBalanced)", 42, "10.0.0.2", 5556 + r);
+                }
+                Log.debug("GRPC ile veri kaydedildi (disk): %d -> %s", 42, value);
+            }, sink);
+        }
+        System.setOut(console);
+        console.print(Log.statsReport());
+        System.exit(0);
+    }
+
+    private static void run(PrintStream console, boolean report, String name, int threads, int ops,
+            Runnable op, File sink) throws Exception {
+        long sizeBefore = sink.length();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < ops; i++) {
+                    op.run();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        // Asenkron yazıcının kuyruğu bitirmesi için kısa bekleme (dosya boyutu için)
+        Thread.sleep(200);
+        if (report) {
+            console.printf("%-12s | %12.0f | %14d%n", name,
+                    (double) threads * ops / (elapsed / 1_000_000_000.0), sink.length() - sizeBefore);
+        }
+    }
+}
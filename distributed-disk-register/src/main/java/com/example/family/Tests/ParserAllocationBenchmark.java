@@ -0,0 +1,135 @@
+package com.example.family.Tests;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.example.family.LineReader;
+import com.example.family.SetGetCommand.Command;
+import com.example.family.SetGetCommand.CommandParser;
+import com.example.family.SetGetCommand.SetCommand;
+import com.google.protobuf.ByteString;
+
+import family.StoredMessage;
+
+/**
+ * Bytes allocated per parsed command.
+ *
+ * JMH is not on this project's classpath, so allocation is measured the way
+ * JMH's gc profiler does it: the JVM's per-thread allocation counter
+ * (com.sun.management.ThreadMXBean#getThreadAllocatedBytes) is read before
+ * and after a warmed-up loop on the benchmark thread.
+ *
+ * Cases:
+ *   legacy String     BufferedReader.readLine + split + toUpperCase + parseInt
+ *                     + protobuf StoredMessage + copyFromUtf8 (the old path)
+ *   byte[] line       LineReader.readLine + CommandParser.parse(byte[])
+ *   in-place buffer   CommandParser.parse(buf, offset, length) on a shared buffer
+ *
+ * Usage: ParserAllocationBenchmark [iterations] [valueSizes, e.g. 16,1024]
+ */
+public class ParserAllocationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Sonuçlar JIT'in işi silmemesi için buraya toplanır
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int[] sizes = Arrays.stream((args.length > 1 ? args[1] : "16,1024").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+
+        System.out.println("=== PARSER ALLOCATION BENCHMARK ===");
+        System.out.printf("%-8s | %-16s | %14s | %10s%n", "value", "path", "bytes/command", "ns/command");
+
+        for (int size : sizes) {
+            char[] chars = new char[size];
+            Arrays.fill(chars, 'v');
+            String value = new String(chars);
+            // SET ve GET yarı yarıya
+            byte[] stream = buildStream(iterations, value);
+
+            for (int round = 0; round < 2; round++) {
+                // İlk tur ısınma; ikinci tur raporlanır
+                boolean report = round == 1;
+                measure(report, size, "legacy String", iterations, () -> legacy(stream));
+                measure(report, size, "byte[] line", iterations, () -> lineReader(stream));
+                measure(report, size, "in-place buffer", iterations, () -> inPlace(stream));
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private interface Run {
+        void run() throws IOException;
+    }
+
+    private static void measure(boolean report, int size, String name, int iterations, Run run) throws IOException {
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = THREAD_MX.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        run.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (report) {
+            System.out.printf("%-8s | %-16s | %14.1f | %10.1f%n",
+                    size + " B", name, (double) allocated / iterations, (double) elapsed / iterations);
+        }
+    }
+
+    private static byte[] buildStream(int iterations, String value) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < iterations; i++) {
+            if (i % 2 == 0) {
+                sb.append("SET ").append(i).append(' ').append(value).append('\n');
+            } else {
+                sb.append("GET ").append(i - 1).append('\n');
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Eski yol: satır String olarak okunur, split ile bölünür, değer protobuf'a kopyalanır
+    private static void legacy(byte[] stream) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(stream), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.split(" ", 3);
+            String cmd = parts[0].toUpperCase();
+            StoredMessage.Builder message = StoredMessage.newBuilder().setId(Integer.parseInt(parts[1]));
+            if (cmd.equals("SET")) {
+                message.setPayload(ByteString.copyFromUtf8(parts[2]));
+            }
+            sink += message.build().getId();
+        }
+    }
+
+    private static void lineReader(byte[] stream) throws IOException {
+        LineReader reader = new LineReader(new ByteArrayInputStream(stream));
+        byte[] line;
+        while ((line = reader.readLine()) != null) {
+            sink += consume(CommandParser.parse(line));
+        }
+    }
+
+    private static void inPlace(byte[] stream) {
+        int start = 0;
+        for (int i = 0; i < stream.length; i++) {
+            if (stream[i] == '\n') {
+                sink += consume(CommandParser.parse(stream, start, i - start));
+                start = i + 1;
+            }
+        }
+    }
+
+    private static int consume(Command cmd) {
+        return cmd instanceof SetCommand set ? set.getValueBytes().size() : 1;
+    }
+}
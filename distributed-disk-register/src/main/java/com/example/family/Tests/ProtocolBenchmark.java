@@ -0,0 +1,157 @@
+package com.example.family.Tests;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.family.BinaryProtocol;
+import com.example.family.BinaryProtocol.Response;
+import com.example.family.BinaryServer;
+import com.example.family.LineReader;
+import com.example.family.TextServer;
+import com.example.family.ThreadPerConnectionTextServer;
+import com.example.family.SetGetCommand.Command;
+import com.example.family.SetGetCommand.CommandParser;
+import com.example.family.SetGetCommand.GetCommand;
+import com.example.family.SetGetCommand.SetCommand;
+import com.google.protobuf.ByteString;
+
+/**
+ * Text (line-based) vs binary (length-prefixed) protocol throughput.
+ *
+ * Without a host argument both servers run in-process with the same
+ * in-memory map behind them, so only framing/parsing and socket cost is
+ * measured. With a host the running leader is used (text 6666, binary 6667)
+ * and replication is included.
+ *
+ * For every value size a single connection does SET then GET for each key
+ * and the MB/s of value bytes moved in both directions is reported.
+ *
+ * Usage: ProtocolBenchmark [requests] [valueSizes, e.g. 100,65536,1048576] [host]
+ */
+public class ProtocolBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int[] sizes = Arrays.stream((args.length > 1 ? args[1] : "100,4096,65536,1048576").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        String host = args.length > 2 ? args[2] : null;
+
+        int textPort = 6666;
+        int binaryPort = 6667;
+        TextServer textServer = null;
+        BinaryServer binaryServer = null;
+        if (host == null) {
+            host = "127.0.0.1";
+            Map<Integer, ByteString> store = new ConcurrentHashMap<>();
+            textServer = new ThreadPerConnectionTextServer(0, line -> handleText(store, line));
+            textServer.start();
+            textPort = textServer.port();
+            binaryServer = new BinaryServer(0, request -> {
+                if (request.opcode == BinaryProtocol.OP_SET) {
+                    store.put(request.key, request.value);
+                    return Response.ok(ByteString.EMPTY);
+                }
+                ByteString value = store.get(request.key);
+                return value == null ? Response.notFound() : Response.ok(value);
+            });
+            binaryServer.start();
+            binaryPort = binaryServer.port();
+        }
+
+        System.out.println("=== PROTOCOL BENCHMARK ===");
+        System.out.printf("requests/size=%d target=%s%n", requests, textServer == null ? host : "in-process");
+        System.out.printf("%-10s | %-8s | %12s | %10s | %10s%n", "value", "protocol", "ops/s", "MB/s", "errors");
+
+        for (int size : sizes) {
+            // 1 MB değerlerde istek sayısını makul tut
+            int n = (int) Math.max(10, Math.min(requests, 256L * 1024 * 1024 / Math.max(1, size)));
+            byte[] value = new byte[size];
+            Arrays.fill(value, (byte) 'x');
+            report(size, "text", n, runText(host, textPort, n, value));
+            report(size, "binary", n, runBinary(host, binaryPort, n, value));
+        }
+
+        if (textServer != null) {
+            textServer.stop();
+            binaryServer.stop();
+        }
+        System.exit(0);
+    }
+
+    private static byte[] handleText(Map<Integer, ByteString> store, byte[] line) {
+        Command cmd = CommandParser.parse(line);
+        if (cmd instanceof SetCommand set) {
+            store.put(set.getKey(), set.getValueBytes());
+            return "OK\n".getBytes(StandardCharsets.US_ASCII);
+        }
+        if (cmd instanceof GetCommand get) {
+            ByteString value = store.get(get.getKey());
+            if (value == null) {
+                return "NOT_FOUND\n".getBytes(StandardCharsets.US_ASCII);
+            }
+            byte[] response = new byte[3 + value.size() + 1];
+            response[0] = 'O';
+            response[1] = 'K';
+            response[2] = ' ';
+            value.copyTo(response, 3);
+            response[response.length - 1] = '\n';
+            return response;
+        }
+        return "ERROR: Unknown command\n".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Sonuç: [süre ns, hata sayısı]
+    private static long[] runText(String host, int port, int n, byte[] value) throws IOException {
+        long errors = 0;
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            LineReader in = new LineReader(new BufferedInputStream(socket.getInputStream(), 64 * 1024), 64 * 1024);
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                out.write(("SET " + i + " ").getBytes(StandardCharsets.US_ASCII));
+                out.write(value);
+                out.write('\n');
+                out.flush();
+                byte[] stored = in.readLine();
+                out.write(("GET " + i + "\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                byte[] read = in.readLine();
+                if (stored == null || read == null || read.length != value.length + 3) {
+                    errors++;
+                }
+            }
+            return new long[] { System.nanoTime() - start, errors };
+        }
+    }
+
+    private static long[] runBinary(String host, int port, int n, byte[] value) throws IOException {
+        long errors = 0;
+        ByteString payload = ByteString.copyFrom(value);
+        try (BinaryClient client = new BinaryClient(host, port)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                Response stored = client.set(i, payload);
+                Response read = client.get(i);
+                if (stored.status != BinaryProtocol.STATUS_OK || read.payload.size() != value.length) {
+                    errors++;
+                }
+            }
+            return new long[] { System.nanoTime() - start, errors };
+        }
+    }
+
+    private static void report(int size, String protocol, int n, long[] result) {
+        double seconds = result[0] / 1_000_000_000.0;
+        // Her anahtar için SET + GET = 2 işlem, değer iki yönde taşınır
+        System.out.printf("%-10s | %-8s | %12.0f | %10.1f | %10d%n",
+                size + " B", protocol, 2 * n / seconds, 2.0 * n * size / seconds / (1024 * 1024), result[1]);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.family.Tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.example.family.GrpcTransport;
+import com.example.family.GrpcTransport.ExecutorMode;
+import com.example.family.GrpcTransport.Transport;
+import com.example.family.StorageServiceImpl;
+import com.google.protobuf.ByteString;
+
+import family.StorageServiceGrpc;
+import family.StoredMessage;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+
+/**
+ * Server transport / executor benchmark.
+ *
+ * For each combination of transport (nio, epoll) and handler executor
+ * (default, bounded, virtual) starts a local StorageService on an ephemeral
+ * port and hammers it with concurrent unary Store calls from client threads
+ * that share one channel (same setup as the leader fanning out SETs).
+ * Epoll and virtual are skipped with a note when not available.
+ *
+ * Usage: ServerTransportBenchmark [clients] [callsPerClient] [valueBytes]
+ */
+public class ServerTransportBenchmark {
+
+    // Her client bu kadar farklı anahtarı döngüsel yazar
+    private static final int KEYS_PER_CLIENT = 100;
+    private static final int KEY_BASE = 900_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int valueBytes = args.length > 2 ? Integer.parseInt(args[2]) : 128;
+
+        byte[] raw = new byte[valueBytes];
+        Arrays.fill(raw, (byte) 'x');
+        ByteString value = ByteString.copyFrom(raw);
+
+        System.out.println("=== SERVER TRANSPORT BENCHMARK ===");
+        System.out.printf("clients=%d callsPerClient=%d value=%d B cores=%d%n",
+                clients, calls, valueBytes, Runtime.getRuntime().availableProcessors());
+
+        for (Transport transport : Transport.values()) {
+            for (ExecutorMode mode : ExecutorMode.values()) {
+                GrpcTransport grpc = new GrpcTransport(transport, 0, mode, 0, 1024);
+                String name = transport + "/" + mode;
+                if (grpc.transport() != transport || grpc.executorMode() != mode) {
+                    System.out.printf("%-16s | skipped (%s)%n", name, grpc.describe());
+                    grpc.shutdown();
+                    continue;
+                }
+                try {
+                    run(grpc, clients, calls / 5, value); // ısınma
+                    long[] latencies = run(grpc, clients, calls, value);
+                    report(name, latencies);
+                } finally {
+                    grpc.shutdown();
+                }
+            }
+        }
+    }
+
+    private static long[] run(GrpcTransport grpc, int clients, int calls, ByteString value)
+            throws Exception {
+        File dataDir = Files.createTempDirectory("transport-bench").toFile();
+        Server server = grpc.buildServer(0, new StorageServiceImpl(dataDir)).start();
+        ManagedChannel channel = grpc.channelBuilder("127.0.0.1", server.getPort()).build();
+        long[] latencies = new long[clients * calls];
+        CountDownLatch done = new CountDownLatch(clients);
+        List<Throwable> errors = new ArrayList<>();
+
+        long wallStart = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread t = new Thread(() -> {
+                StorageServiceGrpc.StorageServiceBlockingStub stub = StorageServiceGrpc.newBlockingStub(channel);
+                try {
+                    for (int i = 0; i < calls; i++) {
+                        int id = KEY_BASE + client * KEYS_PER_CLIENT + (i % KEYS_PER_CLIENT);
+                        long start = System.nanoTime();
+                        stub.store(StoredMessage.newBuilder().setId(id).setPayload(value).build());
+                        latencies[client * calls + i] = System.nanoTime() - start;
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            t.start();
+        }
+        done.await();
+        long wall = System.nanoTime() - wallStart;
+
+        channel.shutdownNow();
+        server.shutdownNow().awaitTermination();
+
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException(errors.size() + " client(s) failed", errors.get(0));
+        }
+        // İlk eleman duvar saati süresi olarak rapora taşınır
+        long[] result = new long[latencies.length + 1];
+        result[0] = wall;
+        System.arraycopy(latencies, 0, result, 1, latencies.length);
+        return result;
+    }
+
+    private static void report(String name, long[] result) {
+        long wall = result[0];
+        long[] sorted = Arrays.copyOfRange(result, 1, result.length);
+        Arrays.sort(sorted);
+        System.out.printf("%-16s | %8.0f ops/s | p50=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                name,
+                sorted.length / (wall / 1_000_000_000.0),
+                sorted[sorted.length / 2] / 1_000_000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1_000_000.0,
+                sorted[sorted.length - 1] / 1_000_000.0);
+    }
+}
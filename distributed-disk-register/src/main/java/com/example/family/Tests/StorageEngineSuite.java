@@ -0,0 +1,291 @@
+package com.example.family.Tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.family.StorageEngine;
+import com.google.protobuf.ByteString;
+
+import family.Codec;
+import family.StoredMessage;
+
+/**
+ * Conformance checks and a benchmark for every StorageEngine backend.
+ *
+ * Each engine (log, file, memory) is opened in its own temp directory and
+ * must pass the same checks: missing keys, round trip with codec, overwrite
+ * with a shorter value, binary values, empty values, chunked writes
+ * (interleaved, incomplete, aborted), chunked reads, concurrent writers,
+ * putAll, putAsync and, for persistent engines, reopening. Then the same workload is measured on
+ * every engine: put and get throughput and latency percentiles for
+ * threads x keys values of valueBytes each.
+ *
+ * Exits with status 1 if any check fails.
+ *
+ * Usage: StorageEngineSuite [keys] [valueBytes] [threads] [engines, e.g. log,file,memory]
+ */
+public class StorageEngineSuite {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int valueBytes = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        String[] engines = (args.length > 3 ? args[3] : "log,file,memory").split(",");
+
+        System.out.println("=== STORAGE ENGINE CONFORMANCE ===");
+        for (String engine : engines) {
+            conformance(engine);
+        }
+
+        System.out.println();
+        System.out.println("=== STORAGE ENGINE BENCHMARK ===");
+        System.out.printf("keys=%d value=%d B threads=%d cores=%d%n",
+                keys, valueBytes, threads, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s | %12s | %9s | %9s | %12s | %9s | %9s%n",
+                "engine", "put ops/s", "put p50", "put p99", "get ops/s", "get p50", "get p99");
+        for (String engine : engines) {
+            benchmark(engine, keys, valueBytes, threads);
+        }
+
+        System.out.println();
+        System.out.println(failures == 0 ? "ALL CHECKS PASSED" : failures + " CHECK(S) FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void conformance(String name) throws Exception {
+        File dir = Files.createTempDirectory("engine-" + name).toFile();
+        StorageEngine engine = StorageEngine.open(name, dir);
+        System.out.println("-- " + engine.name() + " (" + dir + ")");
+
+        check(engine.get(1) == null, "missing key: get returns null");
+        check(engine.valueSize(1) == -1, "missing key: valueSize returns -1");
+        check(engine.openReader(1) == null, "missing key: openReader returns null");
+
+        ByteString deflated = bytes(300, 1);
+        engine.put(1, Codec.DEFLATE, deflated);
+        StoredMessage one = engine.get(1);
+        check(one != null && one.getId() == 1 && one.getCodec() == Codec.DEFLATE
+                && one.getPayload().equals(deflated), "round trip keeps bytes and codec");
+        check(engine.valueSize(1) == deflated.size(), "valueSize is the value length");
+
+        ByteString shorter = ByteString.copyFromUtf8("short");
+        engine.put(1, Codec.NONE, shorter);
+        StoredMessage overwritten = engine.get(1);
+        check(overwritten.getPayload().equals(shorter) && overwritten.getCodec() == Codec.NONE,
+                "overwrite with a shorter value leaves no tail");
+
+        ByteString binary = ByteString.copyFrom(new byte[] { 'a', '\n', 0, (byte) 0xFF, '\r', '\n', 'b' });
+        engine.put(2, Codec.NONE, binary);
+        check(engine.get(2).getPayload().equals(binary), "binary value with newlines and zero bytes");
+
+        engine.put(3, Codec.NONE, ByteString.EMPTY);
+        StoredMessage empty = engine.get(3);
+        check(empty != null && empty.getPayload().isEmpty(), "empty value is stored (not missing)");
+
+        // Büyük değer parça parça; arada başka bir put (log engine'de map'li okumaya da girer)
+        ByteString large = bytes(1_500_000, 7);
+        StorageEngine.ChunkedWrite chunked = engine.beginChunked(4, Codec.NONE, large.size());
+        for (int offset = 0; offset < large.size(); offset += 65_536) {
+            chunked.write(large.substring(offset, Math.min(large.size(), offset + 65_536)));
+            if (offset == 0) {
+                engine.put(5, Codec.NONE, shorter);
+                check(engine.get(4) == null, "chunked value is invisible before commit");
+            }
+        }
+        chunked.commit();
+        check(engine.get(4) != null && engine.get(4).getPayload().equals(large), "chunked write round trip");
+        check(engine.get(5).getPayload().equals(shorter), "put interleaved with a chunked write");
+        check(readAll(engine, 4).equals(large), "chunked read returns the whole value");
+        check(nextAll(engine, 4).equals(large), "chunked next() returns the whole value");
+
+        StorageEngine.ChunkedWrite incomplete = engine.beginChunked(6, Codec.NONE, 1000);
+        incomplete.write(bytes(10, 6));
+        boolean rejected = false;
+        try {
+            incomplete.commit();
+        } catch (IOException e) {
+            rejected = true;
+        }
+        check(rejected && engine.get(6) == null, "incomplete chunked write is rejected");
+
+        engine.put(7, Codec.NONE, shorter);
+        StorageEngine.ChunkedWrite aborted = engine.beginChunked(7, Codec.NONE, 100);
+        aborted.write(bytes(50, 8));
+        aborted.abort();
+        check(engine.get(7).getPayload().equals(shorter), "aborted chunked write keeps the old value");
+
+        // Farklı anahtarlara eşzamanlı yazanlar
+        int writers = 8;
+        int perWriter = 500;
+        CountDownLatch done = new CountDownLatch(writers);
+        AtomicInteger errors = new AtomicInteger();
+        for (int w = 0; w < writers; w++) {
+            int base = 1000 + w * perWriter;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < perWriter; i++) {
+                        engine.put(base + i, Codec.NONE, ByteString.copyFromUtf8("v" + (base + i)));
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        boolean allPresent = errors.get() == 0;
+        for (int id = 1000; id < 1000 + writers * perWriter && allPresent; id++) {
+            StoredMessage message = engine.get(id);
+            allPresent = message != null && message.getPayload().toStringUtf8().equals("v" + id);
+        }
+        check(allPresent, "concurrent writers on distinct keys");
+
+        // Toplu ve beklemeyen yazma yolları (StoreBatch / Replicate)
+        List<StoredMessage> batch = new ArrayList<>();
+        for (int id = 9000; id < 9010; id++) {
+            batch.add(StoredMessage.newBuilder().setId(id).setCodec(Codec.NONE).setPayload(bytes(100, id)).build());
+        }
+        engine.putAll(batch);
+        boolean batchPresent = true;
+        for (StoredMessage message : batch) {
+            StoredMessage stored = engine.get(message.getId());
+            batchPresent &= stored != null && stored.getPayload().equals(message.getPayload());
+        }
+        check(batchPresent, "putAll stores every message");
+        engine.putAsync(9010, Codec.DEFLATE, deflated).get();
+        StoredMessage async = engine.get(9010);
+        check(async != null && async.getCodec() == Codec.DEFLATE && async.getPayload().equals(deflated),
+                "putAsync value is readable once its future completes");
+        int expectedKeys = 6 + writers * perWriter + 11; // 1, 2, 3, 4, 5, 7 + eşzamanlılar + toplu/async
+        check(engine.size() == expectedKeys, "size counts distinct keys (" + engine.size() + ")");
+
+        if (engine.persistent()) {
+            engine.close();
+            StorageEngine reopened = StorageEngine.open(name, dir);
+            check(reopened.get(1).getPayload().equals(shorter)
+                    && reopened.get(4).getPayload().equals(large)
+                    && reopened.get(3).getPayload().isEmpty()
+                    && reopened.get(6) == null
+                    && reopened.size() == expectedKeys, "values survive reopen");
+            reopened.close();
+        } else {
+            engine.close();
+        }
+    }
+
+    private static void benchmark(String name, int keys, int valueBytes, int threads) throws Exception {
+        File dir = Files.createTempDirectory("engine-bench-" + name).toFile();
+        StorageEngine engine = StorageEngine.open(name, dir);
+        ByteString value = bytes(valueBytes, 42);
+
+        long[] putLatencies = new long[keys];
+        long putElapsed = run(threads, keys, (id, slot) -> {
+            long start = System.nanoTime();
+            engine.put(id, Codec.NONE, value);
+            putLatencies[slot] = System.nanoTime() - start;
+        });
+
+        long[] getLatencies = new long[keys];
+        long getElapsed = run(threads, keys, (id, slot) -> {
+            // Yazma sırasından bağımsız, rastgele anahtar
+            int key = (int) ((id * 2_654_435_761L) % keys);
+            long start = System.nanoTime();
+            StoredMessage message = engine.get(key);
+            getLatencies[slot] = System.nanoTime() - start;
+            if (message == null || message.getPayload().size() != valueBytes) {
+                throw new IOException("bad read for " + key);
+            }
+        });
+
+        Arrays.sort(putLatencies);
+        Arrays.sort(getLatencies);
+        System.out.printf("%-8s | %12.0f | %7.1fus | %7.1fus | %12.0f | %7.1fus | %7.1fus%n", name,
+                keys / (putElapsed / 1_000_000_000.0),
+                putLatencies[keys / 2] / 1000.0, putLatencies[(int) (keys * 0.99)] / 1000.0,
+                keys / (getElapsed / 1_000_000_000.0),
+                getLatencies[keys / 2] / 1000.0, getLatencies[(int) (keys * 0.99)] / 1000.0);
+        engine.close();
+    }
+
+    private interface Op {
+        void apply(int id, int slot) throws IOException;
+    }
+
+    // Anahtarlar thread'lere eşit bölünür; toplam süre (ns) döner
+    private static long run(int threads, int keys, Op op) throws Exception {
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Throwable> errors = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            new Thread(() -> {
+                try {
+                    for (int id = first; id < keys; id += threads) {
+                        op.apply(id, id);
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException(errors.get(0));
+        }
+        return elapsed;
+    }
+
+    private static ByteString readAll(StorageEngine engine, int id) throws IOException {
+        try (StorageEngine.ValueReader reader = engine.openReader(id)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) reader.size());
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            while (true) {
+                chunk.clear();
+                if (reader.read(chunk) < 0) {
+                    break;
+                }
+                chunk.flip();
+                buffer.put(chunk);
+            }
+            buffer.flip();
+            return ByteString.copyFrom(buffer);
+        }
+    }
+
+    private static ByteString nextAll(StorageEngine engine, int id) throws IOException {
+        try (StorageEngine.ValueReader reader = engine.openReader(id)) {
+            ByteString value = ByteString.EMPTY;
+            for (ByteString chunk; (chunk = reader.next(64 * 1024)) != null;) {
+                value = value.concat(chunk);
+            }
+            return value;
+        }
+    }
+
+    private static ByteString bytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return ByteString.copyFrom(data);
+    }
+
+    private static void check(boolean ok, String description) {
+        System.out.printf("  [%s] %s%n", ok ? "PASS" : "FAIL", description);
+        if (!ok) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.family.Tests;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.example.family.NioTextServer;
+import com.example.family.TextServer;
+import com.example.family.ThreadPerConnectionTextServer;
+
+/**
+ * Thread-per-connection vs NIO selector text server benchmark.
+ *
+ * Both servers run the same handler: it simulates command work (replication
+ * wait) by parking for workMicros and answers "OK". Every client connection
+ * sends SET lines one at a time and waits for the answer, like
+ * ConcurrencyTest. Reports throughput, latency and how many server threads
+ * were alive (peak) during the run.
+ *
+ * Usage: TextServerBenchmark [connections] [requestsPerConnection] [workMicros] [nioWorkers]
+ */
+public class TextServerBenchmark {
+
+    private static final byte[] OK = "OK\n".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        long workMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        TextServer.Handler handler = line -> {
+            LockSupport.parkNanos(workMicros * 1000);
+            return OK;
+        };
+
+        System.out.println("=== TEXT SERVER BENCHMARK ===");
+        System.out.printf("connections=%d requests/conn=%d work=%d us cores=%d%n",
+                connections, requests, workMicros, Runtime.getRuntime().availableProcessors());
+
+        run("thread-per-conn", new ThreadPerConnectionTextServer(0, handler), connections, requests);
+        run("nio selector", new NioTextServer(0, handler, 2, workers, 1, true), connections, requests);
+    }
+
+    private static void run(String name, TextServer server, int connections, int requests) throws Exception {
+        server.start();
+        int port = server.port();
+
+        long[] latencies = new long[connections * requests];
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(connections);
+        AtomicInteger errors = new AtomicInteger();
+
+        for (int c = 0; c < connections; c++) {
+            int client = c;
+            Thread t = new Thread(() -> {
+                try (Socket socket = new Socket("127.0.0.1", port)) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    connected.countDown();
+                    go.await();
+                    for (int i = 0; i < requests; i++) {
+                        byte[] line = ("SET " + (client * requests + i) + " value-" + i + "\n")
+                                .getBytes(StandardCharsets.UTF_8);
+                        long start = System.nanoTime();
+                        out.write(line);
+                        out.flush();
+                        if (in.readLine() == null) {
+                            throw new IllegalStateException("connection closed");
+                        }
+                        latencies[client * requests + i] = System.nanoTime() - start;
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    connected.countDown();
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-client-" + c);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        connected.await();
+
+        long wallStart = System.nanoTime();
+        go.countDown();
+        // Koşu boyunca en yüksek sunucu thread sayısı
+        int serverThreads = 0;
+        while (!done.await(50, TimeUnit.MILLISECONDS)) {
+            serverThreads = Math.max(serverThreads, countServerThreads());
+        }
+        long wall = System.nanoTime() - wallStart;
+        server.stop();
+
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-16s | %8.0f req/s | p50=%.3f ms p99=%.3f ms | server threads=%d | errors=%d%n",
+                name,
+                sorted.length / (wall / 1_000_000_000.0),
+                sorted[sorted.length / 2] / 1_000_000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1_000_000.0,
+                serverThreads,
+                errors.get());
+    }
+
+    // Sunucuya ait thread'ler: bağlantı thread'leri, event loop'lar, worker'lar, acceptor
+    private static int countServerThreads() {
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            String n = t.getName();
+            if (n.startsWith("text-") || n.equals("LeaderTextListener")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
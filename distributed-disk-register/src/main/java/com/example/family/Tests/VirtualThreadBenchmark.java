@@ -0,0 +1,198 @@
+package com.example.family.Tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.example.family.TextServer;
+import com.example.family.ThreadPerConnectionTextServer;
+import com.example.family.VirtualThreads;
+
+/**
+ * Platform thread-per-connection vs virtual thread-per-connection text server.
+ *
+ * Opens many connections to one ThreadPerConnectionTextServer and measures:
+ *   idle    platform thread count, RSS and heap growth with every connection
+ *           open and idle (the server blocks one thread per connection)
+ *   active  throughput while every connection keeps one GET in flight; the
+ *           handler parks for workMicros to simulate the replication wait
+ *
+ * Each mode runs in its own child JVM so RSS numbers do not leak between
+ * runs. The virtual mode needs Java 21+ (java21 profile) and is skipped with
+ * a note otherwise. The process opens 2 file descriptors per connection, so
+ * raise "ulimit -n" above 2 x connections.
+ *
+ * Usage: VirtualThreadBenchmark [connections] [rounds] [workMicros] [clientThreads]
+ */
+public class VirtualThreadBenchmark {
+
+    private static final byte[] OK = "OK\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GET = "GET 1\n".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--mode")) {
+            String[] rest = new String[args.length - 2];
+            System.arraycopy(args, 2, rest, 0, rest.length);
+            runMode(args[1], rest);
+            return;
+        }
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long workMicros = args.length > 2 ? Long.parseLong(args[2]) : 500;
+        int clientThreads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        System.out.println("=== VIRTUAL THREAD BENCHMARK ===");
+        System.out.printf("connections=%d rounds=%d work=%d us clientThreads=%d cores=%d java=%s%n",
+                connections, rounds, workMicros, clientThreads,
+                Runtime.getRuntime().availableProcessors(), System.getProperty("java.version"));
+        System.out.printf("%-9s | %10s | %12s | %13s | %12s | %9s%n",
+                "mode", "threads", "RSS +MB", "heap +MB", "req/s", "errors");
+
+        for (String mode : new String[] { "platform", "virtual" }) {
+            // Ayrı JVM: önceki modun thread yığınları RSS'te kalmasın
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(VirtualThreadBenchmark.class.getName());
+            command.add("--mode");
+            command.add(mode);
+            command.add(String.valueOf(connections));
+            command.add(String.valueOf(rounds));
+            command.add(String.valueOf(workMicros));
+            command.add(String.valueOf(clientThreads));
+            Process child = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+            child.waitFor();
+        }
+    }
+
+    private static void runMode(String mode, String[] args) throws Exception {
+        int connections = Integer.parseInt(args[0]);
+        int rounds = Integer.parseInt(args[1]);
+        long workMicros = Long.parseLong(args[2]);
+        int clientThreads = Integer.parseInt(args[3]);
+
+        boolean virtual = mode.equals("virtual");
+        if (virtual && !VirtualThreads.available()) {
+            System.out.printf("%-9s | skipped (needs Java 21+, running %s)%n", mode, System.getProperty("java.version"));
+            return;
+        }
+
+        TextServer.Handler handler = line -> {
+            LockSupport.parkNanos(workMicros * 1000);
+            return OK;
+        };
+        TextServer server = new ThreadPerConnectionTextServer(0, handler, 1, 0, 200, virtual);
+        server.start();
+
+        System.gc();
+        long rssBefore = rssBytes();
+        long heapBefore = usedHeap();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        List<SocketChannel> channels = new ArrayList<>(connections);
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.port());
+        for (int i = 0; i < connections; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.socket().setTcpNoDelay(true);
+            channels.add(channel);
+        }
+        // Sunucu her bağlantı için thread'ini açıp read'de bloklasın
+        Thread.sleep(2000);
+        System.gc();
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+        long rss = rssBytes() - rssBefore;
+        long heap = usedHeap() - heapBefore;
+
+        // Her bağlantıda sürekli tek GET: client thread'i kendi dilimindeki
+        // bağlantıların hepsine yazar, sonra cevapları okur
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clientThreads);
+        long start = System.nanoTime();
+        for (int t = 0; t < clientThreads; t++) {
+            List<SocketChannel> slice = new ArrayList<>();
+            for (int i = t; i < connections; i += clientThreads) {
+                slice.add(channels.get(i));
+            }
+            new Thread(() -> {
+                ByteBuffer reply = ByteBuffer.allocate(64);
+                try {
+                    for (int r = 0; r < rounds; r++) {
+                        for (SocketChannel channel : slice) {
+                            channel.write(ByteBuffer.wrap(GET));
+                        }
+                        for (SocketChannel channel : slice) {
+                            if (!readLine(channel, reply)) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        double throughput = (double) connections * rounds / (elapsed / 1_000_000_000.0);
+
+        System.out.printf("%-9s | %10d | %12.1f | %13.1f | %12.0f | %9d%n", mode, threads,
+                rss < 0 ? Double.NaN : rss / (1024.0 * 1024), heap / (1024.0 * 1024), throughput, errors.get());
+
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+        server.stop();
+        System.exit(0);
+    }
+
+    // Tek cevap satırı ('\n'e kadar); bağlantı kapandıysa false
+    private static boolean readLine(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (true) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+            if (buffer.position() > 0 && buffer.get(buffer.position() - 1) == '\n') {
+                return buffer.get(0) == 'O';
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // Linux'ta /proc/self/status VmRSS; yoksa -1
+    private static long rssBytes() {
+        File status = new File("/proc/self/status");
+        if (!status.exists()) {
+            return -1;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(status.toPath())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException ignored) {
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.family.Tests;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.example.family.LineReader;
+import com.example.family.NioTextServer;
+import com.example.family.TextServer;
+import com.example.family.TextWriteStats;
+import com.example.family.ThreadPerConnectionTextServer;
+
+/**
+ * Response write coalescing on/off, for both text servers.
+ *
+ * Every client connection is a pipelined client: it writes a burst of
+ * `window` SET lines in one go and then reads the `window` responses.
+ * The handler parks for workMicros (simulated replication) and answers "OK".
+ * Reports throughput and responses per socket write (syscall), taken from
+ * the servers' TextWriteStats counters.
+ *
+ * Usage: WriteCoalescingBenchmark [connections] [requestsPerConnection] [window] [workMicros]
+ */
+public class WriteCoalescingBenchmark {
+
+    private static final byte[] OK = "OK\n".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        int window = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        long workMicros = args.length > 3 ? Long.parseLong(args[3]) : 50;
+
+        TextServer.Handler handler = line -> {
+            LockSupport.parkNanos(workMicros * 1000);
+            return OK;
+        };
+
+        System.out.println("=== WRITE COALESCING BENCHMARK ===");
+        System.out.printf("connections=%d requests/conn=%d window=%d work=%d us%n",
+                connections, requests, window, workMicros);
+        System.out.printf("%-28s | %10s | %16s%n", "server", "req/s", "responses/write");
+
+        run("thread depth=1  no-coalesce", new ThreadPerConnectionTextServer(0, handler, 1, 0, 0), connections, requests, window);
+        run("thread depth=1  coalesce", new ThreadPerConnectionTextServer(0, handler, 1, 0, 200), connections, requests, window);
+        run("thread depth=16 no-coalesce", new ThreadPerConnectionTextServer(0, handler, 16, 64, 0), connections, requests, window);
+        run("thread depth=16 coalesce", new ThreadPerConnectionTextServer(0, handler, 16, 64, 200), connections, requests, window);
+        run("nio depth=16    no-coalesce", new NioTextServer(0, handler, 2, 64, 16, false), connections, requests, window);
+        run("nio depth=16    coalesce", new NioTextServer(0, handler, 2, 64, 16, true), connections, requests, window);
+        System.exit(0);
+    }
+
+    private static void run(String name, TextServer server, int connections, int requests, int window)
+            throws Exception {
+        server.start();
+        int port = server.port();
+        CountDownLatch done = new CountDownLatch(connections);
+        AtomicInteger errors = new AtomicInteger();
+        long responsesBefore = TextWriteStats.responses();
+        long writesBefore = TextWriteStats.writes();
+        long start = System.nanoTime();
+
+        for (int c = 0; c < connections; c++) {
+            int client = c;
+            Thread t = new Thread(() -> {
+                try (Socket socket = new Socket("127.0.0.1", port)) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    LineReader in = new LineReader(socket.getInputStream());
+                    for (int sent = 0; sent < requests; sent += window) {
+                        int burst = Math.min(window, requests - sent);
+                        StringBuilder sb = new StringBuilder();
+                        for (int i = 0; i < burst; i++) {
+                            sb.append("SET ").append(client * requests + sent + i).append(" value\n");
+                        }
+                        out.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                        for (int i = 0; i < burst; i++) {
+                            if (in.readLine() == null) {
+                                throw new IllegalStateException("connection closed");
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-client-" + c);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        done.await();
+        long wall = System.nanoTime() - start;
+        server.stop();
+
+        long responses = TextWriteStats.responses() - responsesBefore;
+        long writes = TextWriteStats.writes() - writesBefore;
+        System.out.printf("%-28s | %10.0f | %16.2f%s%n", name,
+                (double) connections * requests / (wall / 1_000_000_000.0),
+                writes == 0 ? 0.0 : (double) responses / writes,
+                errors.get() == 0 ? "" : "  errors=" + errors.get());
+    }
+}
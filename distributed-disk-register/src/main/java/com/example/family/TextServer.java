@@ -0,0 +1,55 @@
+package com.example.family;
+
+import java.io.IOException;
+
+/**
+ * Liderin SET/GET/STATS metin protokolünü konuşan TCP sunucusu.
+ * Satırları ayırmak ve cevapları yazmak sunucunun işidir; komutun kendisi
+ * {@link Handler} tarafından işlenir, böylece iki model de aynı mantığı kullanır.
+ *
+ * tolerance.conf ayarları:
+ *   TEXT_SERVER_MODE=thread | nio | virtual   (virtual: thread modeli, sanal thread'lerle; Java 21+)
+ *   TEXT_SELECTOR_THREADS=2        (nio: event loop sayısı)
+ *   TEXT_WORKER_THREADS=64         (komut işleyen thread'ler; komutlar replikasyonu bekler)
+ *   TEXT_PIPELINE_DEPTH=1          (bağlantı başına aynı anda işlenen komut; 1 = pipeline yok,
+ *                                   komutlar eskisi gibi tek tek. Pipelining için ör. 16; cevaplar
+ *                                   yine istek sırasıyla gider)
+ *   TEXT_FLUSH_DELAY_MICROS=200    (cevap birleştirme için en fazla bekleme; 0 = her cevap hemen yazılır)
+ */
+public interface TextServer {
+
+    /**
+     * Tek bir satırı (sonundaki '\n' olmadan) işler ve '\n' ile biten cevabı
+     * döner. Cevap yoksa (örn. boş satır) null döner. Bloklayabilir
+     * (replikasyon, GET), bu yüzden event loop thread'inde çağrılmaz.
+     */
+    @FunctionalInterface
+    interface Handler {
+        byte[] handle(byte[] line);
+    }
+
+    void start() throws IOException;
+
+    // Bağlantı ve istemci başına hız sınırı (start'tan önce çağrılır; null = sınırsız)
+    void useLimiter(ClientLimiter limiter);
+
+    // Asıl dinlenen port (0 ile başlatıldıysa atanan port)
+    int port();
+
+    void stop();
+
+    static TextServer fromConfig(int port, Handler handler) {
+        String mode = ToleranceConfig.getString("TEXT_SERVER_MODE", "thread");
+        int workers = ToleranceConfig.getInt("TEXT_WORKER_THREADS", 64);
+        int depth = ToleranceConfig.getInt("TEXT_PIPELINE_DEPTH", 1);
+        long flushDelayMicros = ToleranceConfig.getLong("TEXT_FLUSH_DELAY_MICROS",
+                ThreadPerConnectionTextServer.DEFAULT_FLUSH_DELAY_MICROS);
+        if (mode.equalsIgnoreCase("nio")) {
+            // NIO'da bekleme sınırı loop turudur; ayar sadece açık/kapalı anlamına gelir
+            return new NioTextServer(port, handler,
+                    ToleranceConfig.getInt("TEXT_SELECTOR_THREADS", 2), workers, depth, flushDelayMicros > 0);
+        }
+        return new ThreadPerConnectionTextServer(port, handler, depth, workers, flushDelayMicros,
+                mode.equalsIgnoreCase("virtual"));
+    }
+}
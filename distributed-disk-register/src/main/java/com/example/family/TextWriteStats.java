@@ -0,0 +1,40 @@
+package com.example.family;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metin sunucularının cevap yazma sayaçları (STATS'ta gösterilir).
+ * Cevap başına düşen soket write sayısı, birleştirmenin ne kadar işe
+ * yaradığını gösterir.
+ */
+public final class TextWriteStats {
+
+    private static final LongAdder responses = new LongAdder();
+    private static final LongAdder writes = new LongAdder();
+
+    private TextWriteStats() {
+    }
+
+    static void onResponse() {
+        responses.increment();
+    }
+
+    static void onWrite() {
+        writes.increment();
+    }
+
+    public static long responses() {
+        return responses.sum();
+    }
+
+    public static long writes() {
+        return writes.sum();
+    }
+
+    public static String statsReport() {
+        long r = responses();
+        long w = writes();
+        return String.format("Cevap: %d | Soket write: %d | Write başına cevap: %.2f%n",
+                r, w, w == 0 ? 0.0 : (double) r / w);
+    }
+}
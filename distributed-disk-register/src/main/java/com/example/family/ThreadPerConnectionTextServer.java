@@ -0,0 +1,240 @@
+package com.example.family;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Her bağlantı için bir platform thread'i açan klasik (bloklayan) metin sunucusu.
+ * Bağlantı başına bir thread + LineReader ile satır satır okuma.
+ *
+ * pipelineDepth 1 ise komutlar bağlantı thread'inde tek tek işlenir. Daha
+ * büyükse bağlantı thread'i sadece okur; komutlar paylaşılan worker havuzunda
+ * {@link CommandPipeline} ile aynı anda çalışır ve cevaplar sırayla yazılır.
+ *
+ * Cevaplar bağlantı başına tek {@link CoalescingWriter} ile yazılır:
+ * arkadan komut bekleniyorsa cevaplar tamponda birikir ve en geç
+ * flushDelayMicros sonra tek write ile gider.
+ *
+ * virtualThreads açıksa (TEXT_SERVER_MODE=virtual, Java 21+) aynı bloklayan
+ * kod bağlantı başına bir sanal thread'de, pipeline komutları da görev başına
+ * sanal thread'de çalışır. Soket okuması ve replikasyon beklemesi (quorum,
+ * bloklayan gRPC çağrıları) OS thread'ini tutmaz, park eder; böylece binlerce
+ * boşta bağlantı binlerce platform thread yığını demek değildir.
+ */
+public class ThreadPerConnectionTextServer implements TextServer {
+
+    static final long DEFAULT_FLUSH_DELAY_MICROS = 200;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final int port;
+    private final Handler handler;
+    private final int pipelineDepth;
+    private final ExecutorService workers;
+    private final ThreadFactory connectionThreads;
+    private final long flushDelayMicros;
+    // Geciktirilmiş flush'ları yapan tek thread (birleştirme kapalıysa null)
+    private final ScheduledExecutorService flushTimer;
+    private volatile ServerSocket serverSocket;
+    private volatile ClientLimiter limiter;
+
+    public ThreadPerConnectionTextServer(int port, Handler handler) {
+        this(port, handler, 1, 0, DEFAULT_FLUSH_DELAY_MICROS);
+    }
+
+    public ThreadPerConnectionTextServer(int port, Handler handler, int pipelineDepth, int workerThreads,
+            long flushDelayMicros) {
+        this(port, handler, pipelineDepth, workerThreads, flushDelayMicros, false);
+    }
+
+    public ThreadPerConnectionTextServer(int port, Handler handler, int pipelineDepth, int workerThreads,
+            long flushDelayMicros, boolean virtualThreads) {
+        this.port = port;
+        this.handler = handler;
+        this.pipelineDepth = Math.max(1, pipelineDepth);
+        this.flushDelayMicros = Math.max(0, flushDelayMicros);
+        if (this.flushDelayMicros > 0) {
+            this.flushTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "text-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.flushTimer = null;
+        }
+        ThreadFactory virtual = virtualThreads ? VirtualThreads.newFactory("text-conn") : null;
+        if (virtualThreads && virtual == null) {
+            System.err.println("Virtual threads need Java 21+, falling back to platform threads");
+        }
+        if (virtual != null) {
+            this.connectionThreads = virtual;
+        } else {
+            AtomicInteger connectionCount = new AtomicInteger();
+            this.connectionThreads = r -> new Thread(r, "text-conn-" + connectionCount.incrementAndGet());
+        }
+        if (this.pipelineDepth > 1 && virtual != null) {
+            // Bağlantı başına derinlik zaten sınırlı; havuz sınırına gerek yok
+            this.workers = VirtualThreads.newExecutor();
+        } else if (this.pipelineDepth > 1) {
+            AtomicInteger workerCount = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), r -> {
+                Thread t = new Thread(r, "text-worker-" + workerCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.workers = null;
+        }
+    }
+
+    @Override
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        new Thread(this::acceptLoop, "LeaderTextListener").start();
+    }
+
+    @Override
+    public void useLimiter(ClientLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        if (flushTimer != null) {
+            flushTimer.shutdownNow();
+        }
+    }
+
+    private void acceptLoop() {
+        try {
+            while (true) {
+                Socket client = serverSocket.accept();
+                ClientLimiter limiter = this.limiter;
+                if (limiter != null && !limiter.tryAcquireConnection(client.getInetAddress())) {
+                    reject(client);
+                    continue;
+                }
+                connectionThreads.newThread(() -> handleConnection(client)).start();
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                System.err.println("Error in leader text listener: " + e.getMessage());
+            }
+        }
+    }
+
+    // Bağlantı sınırı aşıldı: sebebi yaz ve kapat
+    private static void reject(Socket client) {
+        try (client) {
+            client.getOutputStream().write(ClientLimiter.textError("Too many connections"));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void handleConnection(Socket client) {
+        ClientLimiter limiter = this.limiter;
+        InetAddress address = client.getInetAddress();
+        Log.info("New TCP client connected: %s", client.getRemoteSocketAddress());
+        try {
+            // Satırlar byte[] olarak okunur: değerler soketten diske kadar decode edilmez
+            LineReader reader = new LineReader(client.getInputStream());
+            CoalescingWriter out = new CoalescingWriter(client, WRITE_BUFFER_SIZE, flushDelayMicros, flushTimer);
+
+            if (pipelineDepth > 1) {
+                handlePipelined(client, reader, out);
+                return;
+            }
+
+            byte[] line;
+            while ((line = reader.readLine()) != null) {
+                String rejection = limiter == null ? null : limiter.checkCommand(address, line.length);
+                byte[] response = rejection != null ? ClientLimiter.textError(rejection) : handler.handle(line);
+                if (response != null) {
+                    out.write(response);
+                }
+                // Okunmuş ama işlenmemiş komut varsa cevap onunkiyle birlikte gider
+                out.endOfBatch(reader.hasBufferedInput());
+            }
+            out.flush();
+        } catch (IOException e) {
+            Log.warn("TCP client handler error: %s", e.getMessage());
+        } finally {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+            }
+            if (limiter != null) {
+                limiter.releaseConnection(address);
+            }
+        }
+    }
+
+    private void handlePipelined(Socket client, LineReader reader, CoalescingWriter out) throws IOException {
+        ClientLimiter limiter = this.limiter;
+        InetAddress address = client.getInetAddress();
+        // Boş slot sayısı: okuma, işlemdeki komut sayısı sınıra ulaşınca bekler
+        Semaphore slots = new Semaphore(pipelineDepth);
+        CommandPipeline pipeline = new CommandPipeline(handler, workers, response -> {
+            try {
+                out.write(response);
+            } catch (IOException e) {
+                closeOnWriteError(client, e);
+            }
+        }, released -> {
+            slots.release(released);
+            try {
+                // Hâlâ işlemde komut varsa cevapları biraz bekletip birlikte yaz
+                out.endOfBatch(slots.availablePermits() < pipelineDepth);
+            } catch (IOException e) {
+                closeOnWriteError(client, e);
+            }
+        });
+
+        try {
+            byte[] line;
+            while ((line = reader.readLine()) != null) {
+                slots.acquire();
+                String rejection = limiter == null ? null : limiter.checkCommand(address, line.length);
+                if (rejection != null) {
+                    // Reddedilen komutun cevabı da sırasıyla yazılır
+                    pipeline.submitResponse(ClientLimiter.textError(rejection));
+                } else {
+                    pipeline.submit(line);
+                }
+            }
+            // İstemci yazmayı bitirdi: bekleyen cevaplar gitmeden kapatma
+            slots.acquire(pipelineDepth);
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeOnWriteError(Socket client, IOException e) {
+        // Okuyan thread de bir sonraki read'de hatayı görür
+        Log.warn("TCP client write error: %s", e.getMessage());
+        try {
+            client.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
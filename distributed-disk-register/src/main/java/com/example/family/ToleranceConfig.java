@@ -3,35 +3,85 @@ package com.example.family;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ToleranceConfig {
     private static final String CONFIG_FILE = "tolerance.conf";
     private static int tolerance = 2;
 
+    // Dosyadaki diğer KEY=VALUE ayarları (HEDGE_*, vb.)
+    private static final Map<String, String> settings = new ConcurrentHashMap<>();
+
     // Tolerance değerini döndüren metot
     public static int getTolerance() {
         return tolerance;
     }
 
+    // Ayar yoksa ya da geçersizse varsayılanı döner
+    public static int getInt(String key, int defaultValue) {
+        String value = settings.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + key + " value in config, using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = settings.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + key + " value in config, using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = settings.get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    public static String getString(String key, String defaultValue) {
+        return settings.getOrDefault(key, defaultValue);
+    }
+
     // Konfigürasyon dosyasından tolerance değerini yükleyen metot
     public static void loadConfig() {
         try (BufferedReader br = new BufferedReader(new FileReader(CONFIG_FILE))) {
             String line;
             while ((line = br.readLine()) != null) {
                 line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
                 if (line.startsWith("TOLERANCE=")) {
                     // 0 1 2 3 4 5 6 7 8 9 10
                     // T O L E R A N C E =  3  Stringin 10. karakterinden itibaren al
                     String value = line.substring("TOLERANCE=".length()).trim();
-                    tolerance = Integer.parseInt(value);
-                    System.out.println("Loaded tolerance configuration: " + tolerance);
-                    return;
+                    try {
+                        tolerance = Integer.parseInt(value);
+                        System.out.println("Loaded tolerance configuration: " + tolerance);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid tolerance value in config, using default: " + tolerance);
+                    }
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (eq > 0) {
+                    settings.put(line.substring(0, eq).trim(), line.substring(eq + 1).trim());
                 }
             }
         } catch (IOException e) {
             System.err.println("Could not read tolerance.conf, using default: " + tolerance);
-        } catch (NumberFormatException e) {
-            System.err.println("Invalid tolerance value in config, using default: " + tolerance);
         }
     }
 }
@@ -0,0 +1,46 @@
+package com.example.family;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Java 21 sanal thread'lerine reflection ile erişim.
+ *
+ * Proje Java 17 ile de derlenip çalışabilsin diye Thread.ofVirtual() ve
+ * Executors.newVirtualThreadPerTaskExecutor() doğrudan çağrılmaz. Java 21+
+ * ile çalışırken (java21 profili) gerçek sanal thread döner, daha eski
+ * JVM'de null döner ve çağıran platform thread'e düşer.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean available() {
+        return newFactory("probe") != null;
+    }
+
+    // Görev başına bir sanal thread (Executors.newVirtualThreadPerTaskExecutor)
+    public static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // Thread.ofVirtual().name(prefix, 1).factory(): prefix-1, prefix-2, ...
+    public static ThreadFactory newFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 1L);
+            return (ThreadFactory) ofVirtual.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}